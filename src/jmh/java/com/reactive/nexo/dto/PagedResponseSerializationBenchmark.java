@@ -0,0 +1,51 @@
+package com.reactive.nexo.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.reactive.nexo.service.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of one page of GET /api/v1/employees, with an ObjectMapper built the way
+ * Spring Boot builds the WebFlux one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagedResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int employees;
+
+    @Param({"5", "20"})
+    public int attributesPerEmployee;
+
+    @Param({"2"})
+    public int valuesPerAttribute;
+
+    private ObjectWriter writer;
+    private PagedResponse<EmployeeWithAttributesDTO> page;
+
+    @Setup
+    public void setup() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        List<EmployeeWithAttributesDTO> content = BenchmarkData.employeeDtos(employees, attributesPerEmployee, valuesPerAttribute);
+        page = new PagedResponse<>(content, 0, employees, 10_000L, 10_000L / employees, false, "MTAw");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,87 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.AttributeWithValuesDTO;
+import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import com.reactive.nexo.model.Permission;
+import com.reactive.nexo.model.Rol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic datasets shaped like the production tables, shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE"};
+
+    private BenchmarkData() {
+    }
+
+    public static List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            employees.add(new Employee(id, "Nombre " + id, "Apellido " + id, "CC", String.valueOf(1_000_000 + id),
+                    "$2a$10$abcdefghijklmnopqrstuuO7bXkXbC1u8H0b1k7l3oYwq3mC8o2u", id % 5 + 1, "secret-" + id, 0L));
+        }
+        return employees;
+    }
+
+    /**
+     * Rows as returned by findValuesByEmployeeIds: ordered by employee, attribute and value.
+     */
+    public static List<EmployeeAttributeValue> attributeRows(int employees, int attributesPerEmployee, int valuesPerAttribute) {
+        List<EmployeeAttributeValue> rows = new ArrayList<>(employees * attributesPerEmployee * valuesPerAttribute);
+        int attributeId = 0;
+        for (int employee = 1; employee <= employees; employee++) {
+            for (int attribute = 0; attribute < attributesPerEmployee; attribute++) {
+                attributeId++;
+                for (int value = 0; value < valuesPerAttribute; value++) {
+                    rows.add(new EmployeeAttributeValue(employee, attributeId, "atributo " + attribute,
+                            "valor " + employee + "-" + attribute + "-" + value));
+                }
+            }
+        }
+        return rows;
+    }
+
+    public static List<EmployeeWithAttributesDTO> employeeDtos(int employees, int attributesPerEmployee, int valuesPerAttribute) {
+        List<EmployeeWithAttributesDTO> dtos = new ArrayList<>(employees);
+        for (Employee employee : employees(employees)) {
+            List<AttributeWithValuesDTO> attributes = new ArrayList<>(attributesPerEmployee);
+            for (int attribute = 0; attribute < attributesPerEmployee; attribute++) {
+                List<String> values = new ArrayList<>(valuesPerAttribute);
+                for (int value = 0; value < valuesPerAttribute; value++) {
+                    values.add("valor " + employee.getId() + "-" + attribute + "-" + value);
+                }
+                attributes.add(new AttributeWithValuesDTO("atributo " + attribute, values));
+            }
+            dtos.add(EmployeeAttributeLoader.toDTO(employee, attributes, true));
+        }
+        return dtos;
+    }
+
+    public static List<Rol> roles(int count) {
+        List<Rol> roles = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            roles.add(new Rol(id, "ROL_" + id));
+        }
+        return roles;
+    }
+
+    /**
+     * Permissions spread over the HTTP methods, in id order per role like the permission table.
+     */
+    public static List<Permission> permissions(int roles, int permissionsPerRol) {
+        List<Permission> permissions = new ArrayList<>(roles * permissionsPerRol);
+        int id = 0;
+        for (int rol = 1; rol <= roles; rol++) {
+            for (int permission = 0; permission < permissionsPerRol; permission++) {
+                permissions.add(new Permission(++id, rol, METHODS[permission % METHODS.length], "/api/v1/resource/" + permission));
+            }
+        }
+        return permissions;
+    }
+}
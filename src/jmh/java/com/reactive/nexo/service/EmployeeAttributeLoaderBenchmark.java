@@ -0,0 +1,59 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.AttributeWithValuesDTO;
+import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory half of getEmployeeWithAttributes and the list endpoints: grouping the joined
+ * attribute/value rows by employee and building the DTOs, for one page of employees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeAttributeLoaderBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int employees;
+
+    @Param({"5", "20"})
+    public int attributesPerEmployee;
+
+    @Param({"2"})
+    public int valuesPerAttribute;
+
+    private List<Employee> page;
+    private List<EmployeeAttributeValue> rows;
+
+    @Setup
+    public void setup() {
+        page = BenchmarkData.employees(employees);
+        rows = BenchmarkData.attributeRows(employees, attributesPerEmployee, valuesPerAttribute);
+    }
+
+    @Benchmark
+    public List<EmployeeWithAttributesDTO> assemble() {
+        Map<Integer, List<AttributeWithValuesDTO>> attributesByEmployee = EmployeeAttributeLoader.groupByEmployee(rows);
+        List<EmployeeWithAttributesDTO> result = new ArrayList<>(page.size());
+        for (Employee employee : page) {
+            result.add(EmployeeAttributeLoader.toDTO(employee,
+                    attributesByEmployee.getOrDefault(employee.getId(), Collections.emptyList()), true));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.reactive.nexo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt verification as done on login, through the PasswordHasher pool, per cost factor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "Nexo-Salud-2024";
+
+    @Param({"10", "12"})
+    public int strength;
+
+    private PasswordHasher hasher;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hasher = new PasswordHasher(1, 16, Duration.ofSeconds(1), strength, Duration.ofMillis(80), strength, strength,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        hash = new BCryptPasswordEncoder(strength).encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public Boolean matches() {
+        return hasher.matches(PASSWORD, hash).block();
+    }
+}
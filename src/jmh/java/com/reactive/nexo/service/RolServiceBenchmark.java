@@ -0,0 +1,47 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.RolWithPermissionDTO;
+import com.reactive.nexo.model.Permission;
+import com.reactive.nexo.model.Rol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuild of the role -> permissions table served by getRolWithPermissions: grouping the
+ * permissions by role and method and converting the multimap into the response lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RolServiceBenchmark {
+
+    @Param({"5", "50"})
+    public int roles;
+
+    @Param({"10", "100"})
+    public int permissionsPerRol;
+
+    private List<Rol> rolRows;
+    private List<Permission> permissionRows;
+
+    @Setup
+    public void setup() {
+        rolRows = BenchmarkData.roles(roles);
+        permissionRows = BenchmarkData.permissions(roles, permissionsPerRol);
+    }
+
+    @Benchmark
+    public Map<Integer, RolWithPermissionDTO> buildTable() {
+        return RolService.buildTable(rolRows, permissionRows);
+    }
+}
@@ -0,0 +1,40 @@
+package com.reactive.nexo.util;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password reset token issue and parse, with the configuration of the default profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil("mySecretKeyForJWTTokenGenerationAndValidation1234567890", 3_600_000L);
+        token = jwtUtil.generatePasswordResetToken("empleado@nexosalud.com", "42");
+    }
+
+    @Benchmark
+    public String generatePasswordResetToken() {
+        return jwtUtil.generatePasswordResetToken("empleado@nexosalud.com", "42");
+    }
+
+    @Benchmark
+    public Claims extractClaims() {
+        return jwtUtil.extractClaims(token);
+    }
+}
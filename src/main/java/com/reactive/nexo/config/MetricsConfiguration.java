@@ -0,0 +1,107 @@
+package com.reactive.nexo.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.server.reactive.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.util.StringUtils;
+import org.springframework.util.function.SingletonSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters shared by all endpoints and repositories; they are published on /actuator/prometheus.
+ *
+ * - http.server.requests (Boot) gets an attributes tag: filtered when the request narrows the
+ *   returned attributes with ?attributes=, unfiltered otherwise.
+ * - repository.invocations times every Spring Data repository method from subscription to
+ *   completion, tagged by repository, method and outcome (success, error or cancelled).
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public DefaultServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                String attributes = context.getCarrier().getQueryParams().getFirst("attributes");
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of("attributes", StringUtils.hasText(attributes) ? "filtered" : "unfiltered"));
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        // resolved on first use: post processors are created before the registry
+        Supplier<MeterRegistry> registry = SingletonSupplier.of(() -> meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RepositoryTimer(registry, information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * A reactive repository method only assembles the query; the time is spent once the
+     * returned Mono or Flux is subscribed, so the timer starts there.
+     */
+    static final class RepositoryTimer implements MethodInterceptor {
+
+        private final Supplier<MeterRegistry> registry;
+        private final String repository;
+
+        RepositoryTimer(Supplier<MeterRegistry> registry, String repository) {
+            this.registry = registry;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String method = invocation.getMethod().getName();
+            Object result = invocation.proceed();
+            if (result instanceof Mono<?> mono) {
+                return Mono.defer(() -> {
+                    Timer.Sample sample = Timer.start(registry.get());
+                    return mono.doFinally(signal -> stop(sample, method, signal));
+                });
+            }
+            if (result instanceof Flux<?> flux) {
+                return Flux.defer(() -> {
+                    Timer.Sample sample = Timer.start(registry.get());
+                    return flux.doFinally(signal -> stop(sample, method, signal));
+                });
+            }
+            return result;
+        }
+
+        private void stop(Timer.Sample sample, String method, SignalType signal) {
+            String outcome = signal == SignalType.ON_ERROR ? "error" : signal == SignalType.CANCEL ? "cancelled" : "success";
+            sample.stop(Timer.builder("repository.invocations")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(registry.get()));
+        }
+    }
+}
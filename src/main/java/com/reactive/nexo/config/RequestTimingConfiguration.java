@@ -0,0 +1,171 @@
+package com.reactive.nexo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.nexo.util.RequestTiming;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.r2dbc.ConnectionFactoryDecorator;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request accounting of database round trips, so an N+1 regression shows up on the
+ * request that causes it:
+ *
+ * - every request carries a {@link RequestTiming} in its Reactor context
+ * - the R2DBC connection factory (below the pool) is wrapped with r2dbc-proxy; its listener
+ *   reads the subscriber context of each statement and adds the statement and its execution
+ *   time to the request that issued it. Being below the pool it also sees the pool's
+ *   validation query, which is a round trip the request pays for as well
+ * - PasswordHasher adds BCrypt time and the JSON encoder adds serialization time
+ *
+ * The response gets a Server-Timing header (db, bcrypt, serialize, total) with what was
+ * spent before it was committed, which for single-value responses is all of it. When the
+ * request ends its statement count goes to http.server.requests.statements, and a request
+ * over request-timing.query-budget statements is logged with its endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "request-timing", name = "enabled", matchIfMissing = true)
+@Slf4j
+public class RequestTimingConfiguration {
+
+    @Bean
+    public ConnectionFactoryDecorator requestTimingConnectionFactoryDecorator() {
+        ProxyExecutionListener listener = new ProxyExecutionListener() {
+            @Override
+            public void beforeQuery(QueryExecutionInfo execInfo) {
+                timingOf(execInfo).ifPresent(timing -> timing.addStatements(execInfo.getQueries().size()));
+            }
+
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                timingOf(execInfo).ifPresent(timing -> timing.addDb(execInfo.getExecuteDuration().toNanos()));
+            }
+        };
+        return connectionFactory -> ProxyConnectionFactory.builder(connectionFactory).listener(listener).build();
+    }
+
+    private static Optional<RequestTiming> timingOf(QueryExecutionInfo execInfo) {
+        ContextView context = execInfo.getValueStore().get(ContextView.class, ContextView.class);
+        return context == null ? Optional.empty() : RequestTiming.from(context);
+    }
+
+    /**
+     * Applied after Boot's Jackson customizer, so the encoder keeps the application ObjectMapper.
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CodecCustomizer requestTimingCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(new TimedJackson2JsonEncoder(objectMapper));
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter requestTimingFilter(@Value("${request-timing.query-budget:20}") int queryBudget,
+                                         @Value("${request-timing.server-timing-header:true}") boolean serverTimingHeader,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        return new WebFilter() {
+            @Override
+            public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+                RequestTiming timing = new RequestTiming();
+                if (serverTimingHeader) {
+                    exchange.getResponse().beforeCommit(() -> {
+                        exchange.getResponse().getHeaders().set("Server-Timing", timing.serverTiming());
+                        return Mono.empty();
+                    });
+                }
+                return chain.filter(exchange)
+                        .doFinally(signal -> record(exchange, timing))
+                        .contextWrite(context -> context.put(RequestTiming.class, timing));
+            }
+
+            private void record(ServerWebExchange exchange, RequestTiming timing) {
+                String method = exchange.getRequest().getMethod().name();
+                String uri = endpoint(exchange);
+                DistributionSummary.builder("http.server.requests.statements")
+                        .description("R2DBC statements issued per request")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .register(registry)
+                        .record(timing.getStatements());
+                if (timing.getStatements() > queryBudget) {
+                    String query = exchange.getRequest().getURI().getRawQuery();
+                    log.warn("query budget exceeded - {} {} ran {} statements (budget {}), db {}ms of {}ms - {}{}",
+                            method, uri, timing.getStatements(), queryBudget, Math.round(timing.getDbMillis()),
+                            Math.round(timing.getTotalMillis()), exchange.getRequest().getURI().getRawPath(),
+                            query == null ? "" : "?" + query);
+                }
+            }
+        };
+    }
+
+    private static String endpoint(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // unmatched paths are not used as tags: one meter per random URL would never be freed
+        return pattern instanceof PathPattern pathPattern ? pathPattern.getPatternString() : "UNKNOWN";
+    }
+
+    /**
+     * Times the encoding of each value: from the value reaching the encoder to its bytes
+     * leaving it (a JSON array's opening bracket is not attributed to any value).
+     */
+    static final class TimedJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+        TimedJackson2JsonEncoder(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            return Flux.deferContextual(context -> {
+                Optional<RequestTiming> timing = RequestTiming.from(context);
+                if (timing.isEmpty()) {
+                    return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+                }
+                AtomicLong valueArrivedAt = new AtomicLong();
+                // keep Mono a Mono: the encoder writes single values differently from streams
+                Publisher<?> timed = inputStream instanceof Mono<?> mono
+                        ? mono.doOnNext(value -> valueArrivedAt.set(System.nanoTime()))
+                        : Flux.from(inputStream).doOnNext(value -> valueArrivedAt.set(System.nanoTime()));
+                return super.encode(timed, bufferFactory, elementType, mimeType, hints)
+                        .doOnNext(buffer -> {
+                            long arrivedAt = valueArrivedAt.getAndSet(0);
+                            if (arrivedAt != 0) {
+                                timing.get().addSerialize(System.nanoTime() - arrivedAt);
+                            }
+                        });
+            });
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.reactive.nexo.controller;
 
 import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.service.AttributeMatch;
+import com.reactive.nexo.service.CountStrategy;
+import com.reactive.nexo.service.ServiceBusyException;
+import com.reactive.nexo.service.EmployeeBulkImportService;
+import com.reactive.nexo.service.EmployeeSearchService;
 import com.reactive.nexo.service.EmployeeService;
+import com.reactive.nexo.service.PasswordResetTokens;
+import com.reactive.nexo.dto.BulkDeleteResult;
+import com.reactive.nexo.dto.BulkImportResult;
+import com.reactive.nexo.dto.CreateEmployeeRequest;
 import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.dto.IdentificationPair;
+import com.reactive.nexo.dto.IdentificationSearchResult;
 import com.reactive.nexo.dto.PagedResponse;
 import com.reactive.nexo.dto.AuthRequest;
 import com.reactive.nexo.dto.AuthResponse;
+import com.reactive.nexo.dto.ResetTokenClaims;
+import com.reactive.nexo.dto.ResetTokenRequest;
+import com.reactive.nexo.util.EntityTag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.slf4j.Logger;
@@ -22,94 +39,184 @@ import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Arrays;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/v1/employees")
 public class EmployeeController {
 @Autowired
 private EmployeeService employeeService;
+@Autowired
+private EmployeeBulkImportService employeeBulkImportService;
+@Autowired
+private EmployeeSearchService employeeSearchService;
+@Autowired
+private PasswordResetTokens passwordResetTokens;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<Employee> create(@RequestBody com.reactive.nexo.dto.CreateEmployeeRequest request){
-        return employeeService.createEmployeeWithAttributes(request)
-                .flatMap(employee -> {
-                    if (request.getAttributes() != null) {
-                        for (Map.Entry<String, List<String>> attribute : request.getAttributes().entrySet()) {
-                            String attributeName = attribute.getKey();
-                            List<String> attributeValues = attribute.getValue();                            
-                            if (("correo".equals(attributeName) || "email".equals(attributeName)) 
-                                && attributeValues != null && !attributeValues.isEmpty()) {
-                                employeeService.resetPassword(employee.getId())
-                                        .subscribe(success -> {
-                                            if (success) {
-                                                logger.info("Password reset email sent to: " + attributeValues.get(0));
-                                            } else {
-                                                logger.info("Failed to send password reset email");
-                                            }
-                                        });
-                            }
-                        }
-                    }
-                    return Mono.just(employee);
-                });
+        // the password reset email is queued by the service in the same transaction
+        return employeeService.createEmployeeWithAttributes(request);
     }
 
     @GetMapping
     public Mono<PagedResponse<EmployeeWithAttributesDTO>> getAllEmployees(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
-            @RequestParam(value = "attributes", required = false) String attributes) {
+            @RequestParam(value = "attributes", required = false) String attributes,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "count", required = false) String count) {
         
-        Set<String> attributeSet = null;
-        if (attributes != null && !attributes.trim().isEmpty()) {
-            attributeSet = new HashSet<>(Arrays.asList(attributes.split(",")));
+        Set<String> attributeSet = parseAttributes(attributes);
+
+        // count=exact|cached|windowed|estimated|none, defaults to employees.pagination.count-strategy
+        CountStrategy countStrategy = count == null || count.isBlank() ? null : CountStrategy.from(count);
+
+        // keyset mode: ?after=<nextCursor> (an empty value starts from the first employee)
+        if (after != null) {
+            return employeeService.getEmployeesAfterCursor(after, size, attributeSet, countStrategy);
         }
-        
-        return employeeService.getAllEmployeesWithPagination(page, size, attributeSet);
+        return employeeService.getAllEmployeesWithPagination(page, size, attributeSet, countStrategy);
+    }
+
+    /**
+     * POST /api/v1/employees/bulk - Create many employees from an NDJSON stream (one CreateEmployeeRequest per line)
+     * Answers with an NDJSON stream of rejected rows, one line per committed chunk and a final summary
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkImportResult> bulkImport(@RequestBody Flux<CreateEmployeeRequest> requests) {
+        return employeeBulkImportService.importEmployees(requests);
     }
 
+    /**
+     * POST /api/v1/employees/bulk - Same import from CSV with a header line; attribute columns hold values separated by '|'
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkImportResult> bulkImportCsv(@RequestBody Flux<String> lines) {
+        return employeeBulkImportService.importCsv(lines);
+    }
+
+    /**
+     * GET /api/v1/employees/export - Stream the whole directory as NDJSON (one employee per line)
+     * Supports the same attributes= filter as the list endpoint
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<EmployeeWithAttributesDTO> exportEmployees(@RequestParam(value = "attributes", required = false) String attributes) {
+        return employeeService.exportEmployees(parseAttributes(attributes));
+    }
+
+    /**
+     * GET /api/v1/employees/by-attribute?name=&value=&match=exact|prefix - Employees by attribute value
+     * Paged by keyset: pass the returned nextCursor as after= to continue. Supports attributes=a,b
+     */
+    @GetMapping("/by-attribute")
+    public Mono<PagedResponse<EmployeeWithAttributesDTO>> getEmployeesByAttribute(
+            @RequestParam("name") String name,
+            @RequestParam("value") String value,
+            @RequestParam(value = "match", defaultValue = "exact") String match,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "attributes", required = false) String attributes) {
+        return employeeService.getEmployeesByAttribute(name, value, AttributeMatch.from(match), after, size, parseAttributes(attributes));
+    }
+
+    private Set<String> parseAttributes(String attributes) {
+        if (attributes == null || attributes.trim().isEmpty()) {
+            return null;
+        }
+        return new HashSet<>(Arrays.asList(attributes.split(",")));
+    }
+
+    /**
+     * GET /api/v1/employees/{employeeId} - Employee with attributes, tagged with its version (ETag).
+     * If-None-Match with the current tag answers 304 from the cached version or a version-only lookup.
+     */
     @GetMapping("/{employeeId}")
-    public Mono<ResponseEntity<EmployeeWithAttributesDTO>> getEmployeeById(@PathVariable Integer employeeId){
-        Mono<EmployeeWithAttributesDTO> employee = employeeService.getEmployeeWithAttributes(employeeId);
-        return employee.map( u -> {
-                     u.setPassword("***");
-                     u.setSecret("***");
-                     return ResponseEntity.ok(u);})
+    public Mono<ResponseEntity<EmployeeWithAttributesDTO>> getEmployeeById(@PathVariable Integer employeeId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        Mono<ResponseEntity<EmployeeWithAttributesDTO>> employee = employeeService.getEmployeeWithAttributes(employeeId)
+                .map(this::taggedResponse)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (ifNoneMatch == null) {
+            return employee;
+        }
+        return employeeService.getEmployeeVersion(employeeId)
+                .map(version -> EntityTag.ofEmployee(employeeId, version))
+                .filter(tag -> EntityTag.matchesNoneMatch(ifNoneMatch, tag))
+                .map(tag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).<EmployeeWithAttributesDTO>build())
+                .switchIfEmpty(employee);
     }
 
     @GetMapping("/by-identification/{identificationType}/{identificationNumber}")
-    public Mono<ResponseEntity<EmployeeWithAttributesDTO>> getEmployeeByIdentificationNumber(@PathVariable String identificationType, @PathVariable String identificationNumber){
-        Mono<EmployeeWithAttributesDTO> employee = employeeService.getEmployeeWithAttributesByIdentification(identificationType.toUpperCase(), identificationNumber);
-        return employee.map( u -> {
-                  u.setPassword("***");
-                  u.setSecret("***");
-                  return ResponseEntity.ok(u);})
+    public Mono<ResponseEntity<EmployeeWithAttributesDTO>> getEmployeeByIdentificationNumber(@PathVariable String identificationType, @PathVariable String identificationNumber,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        String type = identificationType.toUpperCase();
+        Mono<ResponseEntity<EmployeeWithAttributesDTO>> employee = employeeService.getEmployeeWithAttributesByIdentification(type, identificationNumber)
+                .map(this::taggedResponse)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (ifNoneMatch == null) {
+            return employee;
+        }
+        return employeeService.getEmployeeVersionByIdentification(type, identificationNumber)
+                .map(version -> EntityTag.ofEmployee(version.getId(), version.getVersion()))
+                .filter(tag -> EntityTag.matchesNoneMatch(ifNoneMatch, tag))
+                .map(tag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).<EmployeeWithAttributesDTO>build())
+                .switchIfEmpty(employee);
+    }
+
+    private ResponseEntity<EmployeeWithAttributesDTO> taggedResponse(EmployeeWithAttributesDTO employee){
+        employee.setPassword("***");
+        employee.setSecret("***");
+        return ResponseEntity.ok().eTag(EntityTag.ofEmployee(employee.getId(), employee.getVersion())).body(employee);
     }
 
+    /**
+     * PUT /api/v1/employees/{employeeId} - Replace an employee and its attributes.
+     * With If-Match the update only applies to that version of the employee (412 otherwise).
+     */
     @PutMapping("/{employeeId}")
-    public Mono<ResponseEntity<Employee>> updateEmployeeById(@PathVariable Integer employeeId, @RequestBody com.reactive.nexo.dto.CreateEmployeeRequest request){
-        return employeeService.updateEmployeeWithAttributes(employeeId, request)
+    public Mono<ResponseEntity<Employee>> updateEmployeeById(@PathVariable Integer employeeId, @RequestBody com.reactive.nexo.dto.CreateEmployeeRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        return employeeService.updateEmployeeWithAttributes(employeeId, request, requiredVersion(ifMatch, employeeId))
                 .map(updatedEmployee -> { 
                     updatedEmployee.setPassword("***");;
                     updatedEmployee.setSecret("***");
-                    return ResponseEntity.ok(updatedEmployee);})
+                    return ResponseEntity.ok().eTag(EntityTag.ofEmployee(employeeId, updatedEmployee.getVersion())).body(updatedEmployee);})
                 .defaultIfEmpty(ResponseEntity.badRequest().build());
     }
 
     @PatchMapping("/{employeeId}")
-    public Mono<ResponseEntity<Employee>> patchEmployeeById(@PathVariable Integer employeeId, @RequestBody com.reactive.nexo.dto.CreateEmployeeRequest request){
-        return employeeService.partialUpdateEmployee(employeeId, request)
+    public Mono<ResponseEntity<Employee>> patchEmployeeById(@PathVariable Integer employeeId, @RequestBody com.reactive.nexo.dto.CreateEmployeeRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        return employeeService.partialUpdateEmployee(employeeId, request, requiredVersion(ifMatch, employeeId))
                 .map(updatedEmployee ->{ 
                     updatedEmployee.setPassword("***");
                     updatedEmployee.setSecret("***");
-                    return ResponseEntity.ok(updatedEmployee);})
-                .onErrorResume(err -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                    return ResponseEntity.ok().eTag(EntityTag.ofEmployee(employeeId, updatedEmployee.getVersion())).body(updatedEmployee);})
+                // 409 / 412 version conflicts and 503 keep their status; anything else is reported as a conflict
+                .onErrorResume(err -> !(err instanceof ResponseStatusException), err -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    private static Long requiredVersion(String ifMatch, Integer employeeId){
+        return ifMatch == null ? null : EntityTag.requiredEmployeeVersion(ifMatch, employeeId);
+    }
+
+    /**
+     * DELETE /api/v1/employees - Delete many employees (body [1,2,3]) with their attributes and values
+     * Unknown ids are skipped; answers with the number of distinct ids requested and of employees deleted
+     */
+    @DeleteMapping
+    public Mono<BulkDeleteResult> deleteEmployees(@RequestBody(required = false) List<Integer> ids) {
+        if (ids == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of employee ids"));
+        }
+        int requested = (int) ids.stream().filter(Objects::nonNull).distinct().count();
+        return employeeService.deleteEmployees(ids)
+                .map(deleted -> new BulkDeleteResult(requested, deleted));
+    }
+
     @DeleteMapping("/{employeeId}")
     public Mono<ResponseEntity<Void>> deleteEmployeeById(@PathVariable Integer employeeId){
         return employeeService.deleteEmployee(employeeId)
@@ -119,8 +226,30 @@ private EmployeeService employeeService;
 
     @PostMapping("/search/id")
     public Flux<Employee> fetchEmployeesByIds(@RequestBody List<Integer> ids) {
-        return employeeService.fetchEmployees(ids);
+        return employeeSearchService.fetchEmployees(ids);
+    }
+
+    /**
+     * POST /api/v1/employees/search/id?includeAttributes=true - Same lookup, with attributes
+     * Supports the same attributes= filter as the list endpoint
+     */
+    @PostMapping(value = "/search/id", params = "includeAttributes=true")
+    public Flux<EmployeeWithAttributesDTO> fetchEmployeesWithAttributesByIds(@RequestBody List<Integer> ids,
+            @RequestParam(value = "attributes", required = false) String attributes) {
+        return employeeSearchService.fetchEmployeesWithAttributes(ids, parseAttributes(attributes));
     }
+
+    /**
+     * POST /api/v1/employees/search/identification - Employees for a list of identification pairs
+     * (body [{"identification_type":"CC","identification_number":"123"}, ...]), one result per pair
+     * in request order with found false for unknown pairs. Supports the attributes= filter
+     */
+    @PostMapping("/search/identification")
+    public Flux<IdentificationSearchResult> fetchEmployeesByIdentifications(@RequestBody List<IdentificationPair> pairs,
+            @RequestParam(value = "attributes", required = false) String attributes) {
+        return employeeSearchService.fetchEmployeesByIdentifications(pairs, parseAttributes(attributes));
+    }
+
     /**
      * POST /api/v1/employees/authenticate - Authenticate an employee
      * Used by the session module to validate credentials and get roles/permissions
@@ -129,7 +258,8 @@ private EmployeeService employeeService;
     public Mono<ResponseEntity<AuthResponse>> authenticate(@RequestBody AuthRequest request) {
         return employeeService.authenticate(request)
                 .map(authResponse -> ResponseEntity.status(HttpStatus.OK).body(authResponse))
-                .onErrorResume(err -> {
+                // a saturated hashing pool is reported as 503 with Retry-After, not as bad credentials
+                .onErrorResume(err -> !(err instanceof ServiceBusyException), err -> {
                     return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
                 });
     }
@@ -162,6 +292,20 @@ private EmployeeService employeeService;
                 });
     }
 
+    /**
+     * POST /api/v1/employees/reset-password/verify - Validate a reset token (front end, on page load)
+     * 200 with the token claims, 401 when it is invalid, expired, or already used / revoked. No database access.
+     */
+    @PostMapping("/reset-password/verify")
+    public Mono<ResponseEntity<ResetTokenClaims>> verifyResetToken(@RequestBody ResetTokenRequest request) {
+        return Mono.fromSupplier(() -> {
+            ResetTokenClaims claims = passwordResetTokens.verify(request.getToken());
+            return claims == null
+                    ? ResponseEntity.status(HttpStatus.UNAUTHORIZED).<ResetTokenClaims>build()
+                    : ResponseEntity.ok(claims);
+        });
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(EmployeeController.class);
 }
 
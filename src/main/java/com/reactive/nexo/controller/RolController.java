@@ -4,8 +4,10 @@ import com.reactive.nexo.dto.RolWithPermissionDTO;
 import com.reactive.nexo.model.Permission;
 import com.reactive.nexo.model.Rol;
 import com.reactive.nexo.service.RolService;
+import com.reactive.nexo.util.EntityTag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -39,10 +41,17 @@ public class RolController {
      * }
      */
     @GetMapping("/{rolId}")
-    public Mono<ResponseEntity<RolWithPermissionDTO>> getRolWithPermissions(@PathVariable Integer rolId) {
+    public Mono<ResponseEntity<RolWithPermissionDTO>> getRolWithPermissions(@PathVariable Integer rolId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/v1/rols/{} - fetching role with permissions", rolId);
+        // el ETag es un digest del rol en la tabla en memoria: el 304 no consulta la base de datos
         return rolService.getRolWithPermissions(rolId)
-            .map(ResponseEntity::ok)
+            .map(rol -> {
+                String tag = EntityTag.ofContent(rol);
+                return EntityTag.matchesNoneMatch(ifNoneMatch, tag)
+                    ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).<RolWithPermissionDTO>build()
+                    : ResponseEntity.ok().eTag(tag).body(rol);
+            })
             .onErrorResume(error -> {
                 log.error("Error fetching rol: {}", error.getMessage());
                 return Mono.just(ResponseEntity.notFound().build());
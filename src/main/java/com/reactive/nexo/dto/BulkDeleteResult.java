@@ -0,0 +1,17 @@
+package com.reactive.nexo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of DELETE /api/v1/employees: how many distinct ids were requested and how many
+ * employees were deleted (ids that did not exist are not counted).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteResult {
+    private Integer requested;
+    private Long deleted;
+}
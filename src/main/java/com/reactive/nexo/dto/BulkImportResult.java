@@ -0,0 +1,39 @@
+package com.reactive.nexo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the POST /api/v1/employees/bulk response: a rejected row (status conflict or
+ * invalid), the outcome of a committed chunk (status chunk) or the final totals (status summary).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportResult {
+    public static final String CONFLICT = "conflict";
+    public static final String INVALID = "invalid";
+    public static final String CHUNK = "chunk";
+    public static final String SUMMARY = "summary";
+
+    private String status;
+    // 1-based position of the row in the request (data rows only for CSV)
+    private Integer row;
+    private String identification_type;
+    private String identification_number;
+    private String message;
+    private Integer created;
+    private Integer conflicts;
+    private Integer invalid;
+
+    public static BulkImportResult rejected(String status, int row, String identificationType, String identificationNumber, String message) {
+        return new BulkImportResult(status, row, identificationType, identificationNumber, message, null, null, null);
+    }
+
+    public static BulkImportResult totals(String status, int created, int conflicts, int invalid) {
+        return new BulkImportResult(status, null, null, null, null, created, conflicts, invalid);
+    }
+}
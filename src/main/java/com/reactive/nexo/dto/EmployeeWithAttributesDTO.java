@@ -18,5 +18,6 @@ public class EmployeeWithAttributesDTO {
     private String password;
     private Integer rol_id;
     private String secret;
+    private Long version;
     private List<AttributeWithValuesDTO> attributes;
 }
@@ -0,0 +1,21 @@
+package com.reactive.nexo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One element of the POST /api/v1/employees/search/identification response, in the position
+ * of the pair it answers: found with the employee, or found false when no employee has it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IdentificationSearchResult {
+    private String identification_type;
+    private String identification_number;
+    private boolean found;
+    private EmployeeWithAttributesDTO employee;
+}
@@ -3,6 +3,7 @@ package com.reactive.nexo.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -14,8 +15,18 @@ public class PagedResponse<T> {
     private List<T> content;
     private int page;
     private int size;
-    private long totalElements;
-    private long totalPages;
+    // null when the total was not requested (count=none)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalPages;
     @JsonProperty("isLast")
     private boolean last;
-}
\ No newline at end of file
+    // keyset cursor for the next page (pass it back as ?after=), absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public PagedResponse(List<T> content, int page, int size, Long totalElements, Long totalPages, boolean last) {
+        this(content, page, size, totalElements, totalPages, last, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.reactive.nexo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Claims of a valid password reset token, as returned by POST /api/v1/employees/reset-password/verify.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResetTokenClaims {
+    private Integer employee_id;
+    private String employee_email;
+    private String token_id;
+    private Instant issued_at;
+    private Instant expires_at;
+}
@@ -10,8 +10,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.List;
@@ -38,12 +37,16 @@ public class EmployeeInitializer implements CommandLineRunner {
     @Autowired
     private com.reactive.nexo.service.ValueAttributeService valueAttributeService;
 
+    @Autowired
+    private com.reactive.nexo.service.RolService rolService;
+
+    @Autowired
+    private com.reactive.nexo.service.PasswordHasher passwordHasher;
+
     @Autowired
     private final RolRepository rolRepository;
     @Autowired
     private final PermissionRepository permissionRepository;
-    
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     public EmployeeInitializer(RolRepository rolRepository, PermissionRepository permissionRepository) {
         this.rolRepository =  rolRepository;
@@ -65,8 +68,8 @@ public class EmployeeInitializer implements CommandLineRunner {
                              new Employee(null,"Kenner","Zambrano","CC","5"),
                              new Employee(null,"Yeider","Caicedo","CC","6"),
                              new Employee(null,"Jhordy","Abonia","CC","7"));
-        out.get(6).setPassword(passwordEncoder.encode("string"));
-        out.get(5).setPassword(passwordEncoder.encode("string"));
+        out.get(6).setPassword("string");
+        out.get(5).setPassword("string");
         out.get(6).setRol_id(1);
         out.get(5).setRol_id(1);
         return out;
@@ -75,6 +78,13 @@ public class EmployeeInitializer implements CommandLineRunner {
     private void initialDataSetup() {
         employeeRepository.deleteAll()
                 .thenMany(Flux.fromIterable(getData()))
+                // hash with the calibrated strength on the hashing pool
+                .concatMap(employee -> employee.getPassword() == null
+                        ? Mono.just(employee)
+                        : passwordHasher.encode(employee.getPassword()).map(hash -> {
+                            employee.setPassword(hash);
+                            return employee;
+                        }))
                 .flatMap(employeeRepository::save)
                 .collectList()
                 .flatMap(savedEmployees -> {
@@ -147,6 +157,8 @@ public class EmployeeInitializer implements CommandLineRunner {
                 List<Permission> permissions = createPermissions();
                 return permissionRepository.saveAll(permissions).collectList(); 
             })
+            // publish the seeded roles to the in-memory permission table used by authenticate
+            .flatMap(savedPermissions -> rolService.reloadPermissions())
             .subscribe(
                 null,
                 error -> log.error("RolInitializer - error during data setup: {}", error.getMessage()),
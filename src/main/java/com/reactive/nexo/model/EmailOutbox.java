@@ -0,0 +1,68 @@
+package com.reactive.nexo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * One email waiting in (or delivered from) the outbox. Password reset emails carry no token:
+ * the dispatcher issues a fresh one when it sends the message.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("email_outbox")
+public class EmailOutbox {
+    public static final String PASSWORD_RESET = "PASSWORD_RESET";
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    // attributes that hold an employee's email address, in order of preference
+    public static final List<String> EMAIL_ATTRIBUTES = List.of("email", "correo");
+
+    @Id
+    private Long id;
+    private String kind;
+    @Column("employee_id")
+    private Integer employeeId;
+    private String recipient;
+    private String status;
+    private Integer attempts;
+    @Column("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    @Column("last_error")
+    private String lastError;
+    @Column("created_at")
+    private LocalDateTime createdAt;
+    @Column("sent_at")
+    private LocalDateTime sentAt;
+
+    public static EmailOutbox passwordReset(Integer employeeId, String recipient) {
+        LocalDateTime now = LocalDateTime.now();
+        return new EmailOutbox(null, PASSWORD_RESET, employeeId, recipient, PENDING, 0, now, null, now, null);
+    }
+
+    /**
+     * Address to send an employee's emails to: the first value of the first of EMAIL_ATTRIBUTES
+     * the employee has, given its attributes by name.
+     */
+    public static Optional<String> recipientOf(Map<String, List<String>> attributes) {
+        return EMAIL_ATTRIBUTES.stream()
+                .map(attributes::get)
+                .filter(Objects::nonNull)
+                .flatMap(values -> values.stream().filter(Objects::nonNull).limit(1))
+                .findFirst();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 
@@ -24,6 +25,9 @@ public class Employee {
     private String password;
     private Integer rol_id;
     private String secret;
+    // bumped on every update; a save with a stale version fails instead of overwriting
+    @Version
+    private Long version;
 
     // Keep compatibility with existing constructor usages that pass 5 args
     public Employee(Integer id, String names, String lastnames, String identification_type, String identification_number) {
@@ -0,0 +1,25 @@
+package com.reactive.nexo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+/**
+ * Flat read model for one attribute/value pair of an employee, as returned by the
+ * joined attribute_employee / value_attribute_employee queries. An attribute without
+ * values comes back as a single row with a null valueAttribute.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeAttributeValue {
+    @Column("employee_id")
+    private Integer employeeId;
+    @Column("attribute_id")
+    private Integer attributeId;
+    @Column("name_attribute")
+    private String nameAttribute;
+    @Column("value_attribute")
+    private String valueAttribute;
+}
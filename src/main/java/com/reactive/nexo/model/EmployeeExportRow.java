@@ -0,0 +1,17 @@
+package com.reactive.nexo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the directory export query: the employee plus one of its attribute values.
+ * attributeValue is null when the employee has no (matching) attributes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeExportRow {
+    private Employee employee;
+    private EmployeeAttributeValue attributeValue;
+}
@@ -0,0 +1,20 @@
+package com.reactive.nexo.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.relational.core.mapping.Column;
+
+/**
+ * Employee row of a page read together with the size of the whole result
+ * (count(*) over ()), so the total comes back with the page in a single query.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class EmployeePageRow extends Employee {
+    @Column("total_count")
+    private Long totalCount;
+}
@@ -0,0 +1,16 @@
+package com.reactive.nexo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Id and row version of an employee: all a conditional GET needs to answer 304.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeVersion {
+    private Integer id;
+    private Long version;
+}
@@ -0,0 +1,26 @@
+package com.reactive.nexo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+
+/**
+ * Stored attribute/value pair of one employee including the row ids, as read by the
+ * attribute sync to diff a PUT against the database. An attribute without values comes
+ * back as a single row with null valueId / valueAttribute.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredAttributeValue {
+    @Column("attribute_id")
+    private Integer attributeId;
+    @Column("name_attribute")
+    private String nameAttribute;
+    private Boolean multiple;
+    @Column("value_id")
+    private Integer valueId;
+    @Column("value_attribute")
+    private String valueAttribute;
+}
@@ -1,18 +1,48 @@
 package com.reactive.nexo.repository;
 
 import com.reactive.nexo.model.AttributeEmployee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import com.reactive.nexo.model.StoredAttributeValue;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import org.springframework.data.r2dbc.repository.Query;
 import reactor.core.publisher.Mono;
 
-public interface AttributeEmployeeRepository extends ReactiveCrudRepository<AttributeEmployee,Integer> {
+import java.util.Collection;
+
+public interface AttributeEmployeeRepository extends ReactiveCrudRepository<AttributeEmployee,Integer>, AttributeEmployeeRepositoryCustom {
     // An employee can have multiple attributes, so return a Flux
     Flux<AttributeEmployee> findByEmployeeId(Integer employeeId);
 
     @Query("select id,employee_id,name_attribute,multiple from attribute_employee where employee_id = $1 and name_attribute = $2 limit 1")
     Mono<AttributeEmployee> findByEmployeeIdAndName(Integer employeeId, String nameAttribute);
 
-    @Query("MERGE INTO attribute_employee (employee_id, name_attribute, multiple) KEY (employee_id, name_attribute) VALUES ($1, $2, $3)")
-    Mono<Integer> upsertByEmployeeIdAndName(Integer employeeId, String nameAttribute, Boolean multiple);
+    @Query("select id,employee_id,name_attribute,multiple from attribute_employee where employee_id = :employeeId and name_attribute in (:names)")
+    Flux<AttributeEmployee> findByEmployeeIdAndNames(Integer employeeId, Collection<String> names);
+
+    // Current attributes and values of one employee with their row ids, for the attribute sync
+    @Query("select a.id as attribute_id, a.name_attribute, a.multiple, v.id as value_id, v.value_attribute from attribute_employee a "
+            + "left join value_attribute_employee v on v.attribute_id = a.id "
+            + "where a.employee_id = $1 order by a.id, v.id")
+    Flux<StoredAttributeValue> findStoredValuesByEmployeeId(Integer employeeId);
+
+    @Modifying
+    @Query("update attribute_employee set multiple = :multiple where id in (:ids)")
+    Mono<Integer> updateMultiple(Collection<Integer> ids, Boolean multiple);
+
+    @Modifying
+    @Query("delete from attribute_employee where id in (:ids)")
+    Mono<Integer> deleteAllByIdIn(Collection<Integer> ids);
+
+    // Attributes and values of a whole set of employees in one round trip (left join keeps attributes without values)
+    @Query("select a.employee_id, a.id as attribute_id, a.name_attribute, v.value_attribute from attribute_employee a "
+            + "left join value_attribute_employee v on v.attribute_id = a.id "
+            + "where a.employee_id in (:employeeIds) order by a.employee_id, a.id, v.id")
+    Flux<EmployeeAttributeValue> findValuesByEmployeeIds(Collection<Integer> employeeIds);
+
+    @Query("select a.employee_id, a.id as attribute_id, a.name_attribute, v.value_attribute from attribute_employee a "
+            + "left join value_attribute_employee v on v.attribute_id = a.id "
+            + "where a.employee_id in (:employeeIds) and a.name_attribute in (:names) order by a.employee_id, a.id, v.id")
+    Flux<EmployeeAttributeValue> findValuesByEmployeeIdsAndNames(Collection<Integer> employeeIds, Collection<String> names);
 }
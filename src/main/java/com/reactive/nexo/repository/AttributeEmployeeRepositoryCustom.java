@@ -0,0 +1,19 @@
+package com.reactive.nexo.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Attribute statements that need dialect specific SQL, implemented with DatabaseClient in
+ * {@link AttributeEmployeeRepositoryCustomImpl}.
+ */
+public interface AttributeEmployeeRepositoryCustom {
+
+    /**
+     * Insert the given attributes of an employee (name -> multiple) in one statement, updating
+     * the multiple flag of those that already exist: INSERT ... ON CONFLICT on PostgreSQL,
+     * MERGE ... KEY on H2.
+     */
+    Mono<Long> upsertAll(Integer employeeId, Map<String, Boolean> multipleByName);
+}
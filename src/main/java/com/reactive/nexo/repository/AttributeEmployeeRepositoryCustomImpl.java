@@ -0,0 +1,38 @@
+package com.reactive.nexo.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+public class AttributeEmployeeRepositoryCustomImpl implements AttributeEmployeeRepositoryCustom {
+
+    private final DatabaseClient databaseClient;
+    private final DatabaseDialect dialect;
+
+    public AttributeEmployeeRepositoryCustomImpl(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.dialect = DatabaseDialect.of(connectionFactory);
+    }
+
+    @Override
+    public Mono<Long> upsertAll(Integer employeeId, Map<String, Boolean> multipleByName) {
+        if (multipleByName.isEmpty()) {
+            return Mono.just(0L);
+        }
+        String rows = EmployeeBulkRepository.valuesRows(multipleByName.size(), 3);
+        String sql = dialect == DatabaseDialect.H2
+                ? "merge into attribute_employee (employee_id, name_attribute, multiple) key (employee_id, name_attribute) values " + rows
+                : "insert into attribute_employee (employee_id, name_attribute, multiple) values " + rows
+                    + " on conflict (employee_id, name_attribute) do update set multiple = excluded.multiple";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        int index = 0;
+        for (Map.Entry<String, Boolean> attribute : multipleByName.entrySet()) {
+            spec = spec.bind(index++, employeeId)
+                    .bind(index++, attribute.getKey())
+                    .bind(index++, attribute.getValue());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
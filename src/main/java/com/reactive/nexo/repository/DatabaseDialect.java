@@ -0,0 +1,27 @@
+package com.reactive.nexo.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * SQL dialect of the configured R2DBC driver, for the few statements that cannot be written
+ * portably (planner statistics, upserts). Resolved from the ConnectionFactory metadata.
+ */
+public enum DatabaseDialect {
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    public static DatabaseDialect of(ConnectionFactory connectionFactory) {
+        String name = connectionFactory.getMetadata().getName();
+        if (name == null) {
+            return OTHER;
+        }
+        if (name.toLowerCase().contains("postgres")) {
+            return POSTGRESQL;
+        }
+        if (name.toLowerCase().contains("h2")) {
+            return H2;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,34 @@
+package com.reactive.nexo.repository;
+
+import com.reactive.nexo.model.EmailOutbox;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface EmailOutboxRepository extends R2dbcRepository<EmailOutbox, Long> {
+
+    // pending rows that are due, and claims whose lease ran out (a dispatcher stopped mid-send)
+    @Query("select * from email_outbox where status in ('PENDING', 'SENDING') and next_attempt_at <= $1 order by next_attempt_at limit $2")
+    Flux<EmailOutbox> findDue(LocalDateTime now, int limit);
+
+    // optimistic claim: only one dispatcher moves a row past the attempts count it read
+    @Modifying
+    @Query("update email_outbox set status = 'SENDING', attempts = attempts + 1, next_attempt_at = $3 "
+            + "where id = $1 and attempts = $2 and status in ('PENDING', 'SENDING')")
+    Mono<Integer> claim(Long id, Integer attempts, LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("update email_outbox set status = 'SENT', sent_at = :sentAt, last_error = null where id in (:ids)")
+    Mono<Integer> markSent(Collection<Long> ids, LocalDateTime sentAt);
+
+    @Modifying
+    @Query("update email_outbox set status = $2, next_attempt_at = $3, last_error = $4 where id = $1")
+    Mono<Integer> markAttemptFailed(Long id, String status, LocalDateTime nextAttemptAt, String lastError);
+}
@@ -0,0 +1,148 @@
+package com.reactive.nexo.repository;
+
+import com.reactive.nexo.model.AttributeEmployee;
+import com.reactive.nexo.model.EmailOutbox;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.ValueAttributeEmployee;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Multi-row statements used by the bulk import: one INSERT ... VALUES (..), (..) per table
+ * and chunk, and (identification_type, identification_number) IN ((..), (..)) lookups (also
+ * used by the identification search).
+ * Statements are split so that none carries more than MAX_BINDS bind values.
+ */
+@Repository
+public class EmployeeBulkRepository {
+
+    // well below the 65535 bind limit of the PostgreSQL wire protocol
+    private static final int MAX_BINDS = 30000;
+
+    private final DatabaseClient databaseClient;
+
+    public EmployeeBulkRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Employees (id, identification_type, identification_number) matching any of the given
+     * identification pairs.
+     */
+    public Flux<Employee> findByIdentifications(List<Employee> employees) {
+        return selectByIdentifications("id, identification_type, identification_number", employees,
+                row -> new Employee(row.get("id", Integer.class), null, null,
+                        row.get("identification_type", String.class), row.get("identification_number", String.class)));
+    }
+
+    /**
+     * Employees with all their columns matching any of the given identification pairs, found
+     * through uq_employees_identification.
+     */
+    public Flux<Employee> findEmployeesByIdentifications(List<Employee> employees) {
+        return selectByIdentifications("id, names, lastnames, identification_type, identification_number, password, rol_id, secret, version", employees,
+                row -> new Employee(row.get("id", Integer.class), row.get("names", String.class), row.get("lastnames", String.class),
+                        row.get("identification_type", String.class), row.get("identification_number", String.class),
+                        row.get("password", String.class), row.get("rol_id", Integer.class), row.get("secret", String.class),
+                        row.get("version", Long.class)));
+    }
+
+    private Flux<Employee> selectByIdentifications(String columns, List<Employee> employees, Function<Row, Employee> mapper) {
+        return Flux.fromIterable(slices(employees, 2))
+                .concatMap(slice -> {
+                    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("select " + columns + " from employees "
+                            + "where (identification_type, identification_number) in (" + valuesRows(slice.size(), 2) + ")");
+                    int index = 0;
+                    for (Employee employee : slice) {
+                        spec = spec.bind(index++, employee.getIdentification_type())
+                                .bind(index++, employee.getIdentification_number());
+                    }
+                    return spec.map((row, metadata) -> mapper.apply(row)).all();
+                });
+    }
+
+    public Mono<Long> insertEmployees(List<Employee> employees) {
+        return insert("insert into employees (names, lastnames, identification_type, identification_number, password, rol_id, secret) values ",
+                employees, new Class<?>[]{String.class, String.class, String.class, String.class, String.class, Integer.class, String.class},
+                employee -> new Object[]{employee.getNames(), employee.getLastnames(), employee.getIdentification_type(),
+                        employee.getIdentification_number(), employee.getPassword(), employee.getRol_id(), employee.getSecret()});
+    }
+
+    public Mono<Long> insertAttributes(List<AttributeEmployee> attributes) {
+        return insert("insert into attribute_employee (employee_id, name_attribute, multiple) values ",
+                attributes, new Class<?>[]{Integer.class, String.class, Boolean.class},
+                attribute -> new Object[]{attribute.getEmployeeId(), attribute.getName_attribute(), attribute.getMultiple()});
+    }
+
+    public Mono<Long> insertValues(List<ValueAttributeEmployee> values) {
+        return insert("insert into value_attribute_employee (attribute_id, value_attribute) values ",
+                values, new Class<?>[]{Integer.class, String.class},
+                value -> new Object[]{value.getAttributeId(), value.getValueAttribute()});
+    }
+
+    public Mono<Long> insertOutbox(List<EmailOutbox> emails) {
+        return insert("insert into email_outbox (kind, employee_id, recipient, status, attempts, next_attempt_at, created_at) values ",
+                emails, new Class<?>[]{String.class, Integer.class, String.class, String.class, Integer.class, LocalDateTime.class, LocalDateTime.class},
+                email -> new Object[]{email.getKind(), email.getEmployeeId(), email.getRecipient(), email.getStatus(), email.getAttempts(),
+                        email.getNextAttemptAt(), email.getCreatedAt()});
+    }
+
+    public Flux<AttributeEmployee> findAttributesByEmployeeIds(Collection<Integer> employeeIds) {
+        return databaseClient.sql("select id, employee_id, name_attribute, multiple from attribute_employee where employee_id in (:employeeIds)")
+                .bind("employeeIds", employeeIds)
+                .map((row, metadata) -> new AttributeEmployee(row.get("id", Integer.class), row.get("name_attribute", String.class),
+                        row.get("multiple", Boolean.class), row.get("employee_id", Integer.class)))
+                .all();
+    }
+
+    private <T> Mono<Long> insert(String prefix, List<T> rows, Class<?>[] types, Function<T, Object[]> columns) {
+        if (rows.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Flux.fromIterable(slices(rows, types.length))
+                .concatMap(slice -> {
+                    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(prefix + valuesRows(slice.size(), types.length));
+                    int index = 0;
+                    for (T row : slice) {
+                        Object[] values = columns.apply(row);
+                        for (int column = 0; column < values.length; column++, index++) {
+                            spec = values[column] == null ? spec.bindNull(index, types[column]) : spec.bind(index, values[column]);
+                        }
+                    }
+                    return spec.fetch().rowsUpdated();
+                })
+                .reduce(0L, Long::sum);
+    }
+
+    // ($1, $2), ($3, $4), ...
+    static String valuesRows(int rows, int columns) {
+        StringBuilder sql = new StringBuilder();
+        int marker = 1;
+        for (int row = 0; row < rows; row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < columns; column++) {
+                sql.append(column == 0 ? "$" : ", $").append(marker++);
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+
+    private static <T> List<List<T>> slices(List<T> rows, int columns) {
+        int perStatement = Math.max(1, MAX_BINDS / columns);
+        List<List<T>> slices = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += perStatement) {
+            slices.add(rows.subList(from, Math.min(rows.size(), from + perStatement)));
+        }
+        return slices;
+    }
+}
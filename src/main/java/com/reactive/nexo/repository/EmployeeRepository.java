@@ -1,18 +1,53 @@
 package com.reactive.nexo.repository;
 
 import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeePageRow;
+import com.reactive.nexo.model.EmployeeVersion;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface EmployeeRepository extends ReactiveCrudRepository<Employee,Integer> {
-    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret from employees where identification_number like $1")
+import java.util.Collection;
+
+public interface EmployeeRepository extends ReactiveCrudRepository<Employee,Integer>, EmployeeRepositoryCustom {
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version from employees where identification_number like $1")
     Flux<Employee> findByIdentificationNumber(String identificationNumber);
-    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret from employees where identification_type = $1 and identification_number = $2 limit 1")
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version from employees where identification_type = $1 and identification_number = $2 limit 1")
     Mono<Employee> findByIdentificationTypeAndNumber(String identificationType, String identificationNumber);
-    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret from employees order by id asc limit $1 offset $2")
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version from employees order by id asc limit $1 offset $2")
     Flux<Employee> findAllWithPagination(int limit, int offset);
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version, count(*) over () as total_count from employees order by id asc limit $1 offset $2")
+    Flux<EmployeePageRow> findAllWithPaginationAndTotal(int limit, int offset);
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version from employees where id > $1 order by id asc limit $2")
+    Flux<Employee> findAllAfterId(int afterId, int limit);
+    @Query("select id,identification_number,identification_type,names,lastnames,password,rol_id,secret,version from employees where id in (:ids)")
+    Flux<Employee> findAllByIdIn(Collection<Integer> ids);
+    // driven by attribute_employee(name_attribute, employee_id); values probed through value_attribute_employee(attribute_id, value_attribute)
+    @Query("select e.id,e.identification_number,e.identification_type,e.names,e.lastnames,e.password,e.rol_id,e.secret,e.version "
+            + "from attribute_employee a join employees e on e.id = a.employee_id "
+            + "where a.name_attribute = $1 and a.employee_id > $3 "
+            + "and exists (select 1 from value_attribute_employee v where v.attribute_id = a.id and v.value_attribute = $2) "
+            + "order by a.employee_id asc limit $4")
+    Flux<Employee> findByAttributeValueAfterId(String nameAttribute, String value, int afterId, int limit);
+    @Query("select e.id,e.identification_number,e.identification_type,e.names,e.lastnames,e.password,e.rol_id,e.secret,e.version "
+            + "from attribute_employee a join employees e on e.id = a.employee_id "
+            + "where a.name_attribute = $1 and a.employee_id > $3 "
+            + "and exists (select 1 from value_attribute_employee v where v.attribute_id = a.id and v.value_attribute like $2 escape '\\') "
+            + "order by a.employee_id asc limit $4")
+    Flux<Employee> findByAttributeValuePatternAfterId(String nameAttribute, String pattern, int afterId, int limit);
+    @Query("select version from employees where id = $1")
+    Mono<Long> findVersionById(Integer id);
+    @Query("select id, version from employees where identification_type = $1 and identification_number = $2 limit 1")
+    Mono<EmployeeVersion> findVersionByIdentification(String identificationType, String identificationNumber);
     @Query("select count(*) from employees")
     Mono<Long> countAll();
+    // attributes and values are removed by the ON DELETE CASCADE foreign keys
+    @Modifying
+    @Query("delete from employees where id in (:ids)")
+    Mono<Integer> deleteAllByIdIn(Collection<Integer> ids);
+    @Modifying
+    @Query("update employees set password = $1, version = version + 1 where id = $2 and password = $3")
+    Mono<Integer> updatePasswordIfUnchanged(String password, Integer id, String previousPassword);
 }
@@ -0,0 +1,38 @@
+package com.reactive.nexo.repository;
+
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeeExportRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Employee queries that need dialect specific SQL, implemented with DatabaseClient in
+ * {@link EmployeeRepositoryCustomImpl}.
+ */
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Approximate number of employees read from the planner statistics, without scanning
+     * the table. Empty when the database has no usable estimate.
+     */
+    Mono<Long> estimateCount();
+
+    /**
+     * Stream every employee ordered by id, joined with the values of the given attributes
+     * (no attributes when the set is empty), from a single query. Rows are fetched from the
+     * database in chunks of fetchSize as downstream demand allows.
+     */
+    Flux<EmployeeExportRow> streamWithAttributes(Set<String> attributeNames, int fetchSize);
+
+    /**
+     * Update one employee and return the updated row, bumping its version, in a single
+     * statement (RETURNING on PostgreSQL, FINAL TABLE on H2). The names, identification and
+     * rol_id of values replace the stored ones; a null password keeps the stored hash and
+     * secret is left alone. When partial is true every null field keeps its stored value
+     * (PATCH). With a non-null expectedVersion only that version of the row is updated.
+     * Empty when no row matched; a duplicate identification fails with DuplicateKeyException.
+     */
+    Mono<Employee> updateReturning(Integer id, Employee values, boolean partial, Long expectedVersion);
+}
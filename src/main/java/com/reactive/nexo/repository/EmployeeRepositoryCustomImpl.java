@@ -0,0 +1,149 @@
+package com.reactive.nexo.repository;
+
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import com.reactive.nexo.model.EmployeeExportRow;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private static final String COLUMNS = "id, names, lastnames, identification_type, identification_number, password, rol_id, secret, version";
+
+    private final DatabaseClient databaseClient;
+    private final DatabaseDialect dialect;
+
+    public EmployeeRepositoryCustomImpl(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.dialect = DatabaseDialect.of(connectionFactory);
+    }
+
+    @Override
+    public Mono<Long> estimateCount() {
+        String sql;
+        switch (dialect) {
+            // reltuples is -1 until the table has been analyzed
+            case POSTGRESQL: sql = "select reltuples::bigint as estimate from pg_class where oid = 'employees'::regclass"; break;
+            case H2: sql = "select row_count_estimate as estimate from information_schema.tables where upper(table_name) = 'EMPLOYEES'"; break;
+            default: return Mono.empty();
+        }
+        return databaseClient.sql(sql)
+                .map((row, metadata) -> {
+                    Number n = row.get("estimate", Number.class);
+                    return n == null ? -1L : n.longValue();
+                })
+                .first()
+                .filter(estimate -> estimate >= 0);
+    }
+
+    @Override
+    public Flux<EmployeeExportRow> streamWithAttributes(Set<String> attributeNames, int fetchSize) {
+        boolean withAttributes = !attributeNames.isEmpty();
+        String sql = withAttributes
+                ? "select e.id, e.names, e.lastnames, e.identification_type, e.identification_number, e.rol_id, e.version, "
+                    + "a.id as attribute_id, a.name_attribute, v.value_attribute from employees e "
+                    + "left join attribute_employee a on a.employee_id = e.id and a.name_attribute in (:names) "
+                    + "left join value_attribute_employee v on v.attribute_id = a.id "
+                    + "order by e.id, a.id, v.id"
+                : "select e.id, e.names, e.lastnames, e.identification_type, e.identification_number, e.rol_id, e.version "
+                    + "from employees e order by e.id";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .filter(statement -> {
+                    // keep the statement we were given: wrapping drivers/proxies return their delegate from fetchSize
+                    statement.fetchSize(fetchSize);
+                    return statement;
+                });
+        if (withAttributes) {
+            spec = spec.bind("names", attributeNames);
+        }
+        return spec.map((row, metadata) -> {
+            Employee employee = new Employee(
+                    row.get("id", Integer.class),
+                    row.get("names", String.class),
+                    row.get("lastnames", String.class),
+                    row.get("identification_type", String.class),
+                    row.get("identification_number", String.class));
+            employee.setRol_id(row.get("rol_id", Integer.class));
+            employee.setVersion(row.get("version", Long.class));
+            EmployeeAttributeValue value = null;
+            if (withAttributes) {
+                Integer attributeId = row.get("attribute_id", Integer.class);
+                if (attributeId != null) {
+                    value = new EmployeeAttributeValue(employee.getId(), attributeId,
+                            row.get("name_attribute", String.class), row.get("value_attribute", String.class));
+                }
+            }
+            return new EmployeeExportRow(employee, value);
+        }).all();
+    }
+
+    @Override
+    public Mono<Employee> updateReturning(Integer id, Employee values, boolean partial, Long expectedVersion) {
+        List<String> assignments = new ArrayList<>();
+        List<Parameter> parameters = new ArrayList<>();
+        assign(assignments, parameters, "names", values.getNames(), String.class, partial);
+        assign(assignments, parameters, "lastnames", values.getLastnames(), String.class, partial);
+        assign(assignments, parameters, "identification_type", values.getIdentification_type(), String.class, partial);
+        assign(assignments, parameters, "identification_number", values.getIdentification_number(), String.class, partial);
+        assign(assignments, parameters, "password", values.getPassword(), String.class, true);
+        assign(assignments, parameters, "rol_id", values.getRol_id(), Integer.class, partial);
+        if (partial) {
+            assign(assignments, parameters, "secret", values.getSecret(), String.class, true);
+        }
+        parameters.add(Parameter.from(id));
+        String update = "update employees set " + String.join(", ", assignments) + ", version = version + 1 where id = $" + parameters.size();
+        if (expectedVersion != null) {
+            parameters.add(Parameter.from(expectedVersion));
+            update += " and version = $" + parameters.size();
+        }
+        switch (dialect) {
+            case POSTGRESQL: return selectEmployee(update + " returning " + COLUMNS, parameters);
+            case H2: return selectEmployee("select " + COLUMNS + " from final table (" + update + ")", parameters);
+            // no single-statement form: update, then read the row back
+            default: return bindAll(databaseClient.sql(update), parameters).fetch().rowsUpdated()
+                    .filter(updated -> updated > 0)
+                    .flatMap(updated -> selectEmployee("select " + COLUMNS + " from employees where id = $1", List.of(Parameter.from(id))));
+        }
+    }
+
+    /**
+     * column = $n, or column = coalesce($n, column) when a null value keeps the stored one
+     */
+    private static void assign(List<String> assignments, List<Parameter> parameters, String column, Object value, Class<?> type, boolean nullKeeps) {
+        parameters.add(Parameter.fromOrEmpty(value, type));
+        String placeholder = "$" + parameters.size();
+        assignments.add(column + " = " + (nullKeeps ? "coalesce(" + placeholder + ", " + column + ")" : placeholder));
+    }
+
+    private Mono<Employee> selectEmployee(String sql, List<Parameter> parameters) {
+        return bindAll(databaseClient.sql(sql), parameters)
+                .map((row, metadata) -> {
+                    Employee employee = new Employee(
+                            row.get("id", Integer.class),
+                            row.get("names", String.class),
+                            row.get("lastnames", String.class),
+                            row.get("identification_type", String.class),
+                            row.get("identification_number", String.class));
+                    employee.setPassword(row.get("password", String.class));
+                    employee.setRol_id(row.get("rol_id", Integer.class));
+                    employee.setSecret(row.get("secret", String.class));
+                    employee.setVersion(row.get("version", Long.class));
+                    return employee;
+                })
+                .one();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindAll(DatabaseClient.GenericExecuteSpec spec, List<Parameter> parameters) {
+        for (int i = 0; i < parameters.size(); i++) {
+            spec = spec.bind(i, parameters.get(i));
+        }
+        return spec;
+    }
+}
@@ -1,9 +1,18 @@
 package com.reactive.nexo.repository;
 
 import com.reactive.nexo.model.ValueAttributeEmployee;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 public interface ValueAttributeEmployeeRepository extends ReactiveCrudRepository<ValueAttributeEmployee,Integer> {
     Flux<ValueAttributeEmployee> findByAttributeId(Integer attributeId);
+
+    @Modifying
+    @Query("delete from value_attribute_employee where id in (:ids)")
+    Mono<Integer> deleteAllByIdIn(Collection<Integer> ids);
 }
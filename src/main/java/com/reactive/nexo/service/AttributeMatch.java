@@ -0,0 +1,30 @@
+package com.reactive.nexo.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * How GET /api/v1/employees/by-attribute compares the stored values with the requested one.
+ */
+public enum AttributeMatch {
+    // value_attribute = value
+    EXACT,
+    // value_attribute starts with value (case sensitive)
+    PREFIX;
+
+    public static AttributeMatch from(String value) {
+        try {
+            return AttributeMatch.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown attribute match: " + value);
+        }
+    }
+
+    /**
+     * LIKE pattern matching values that start with the given prefix, with the LIKE wildcards
+     * in the prefix escaped (escape character '\').
+     */
+    public static String prefixPattern(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,28 @@
+package com.reactive.nexo.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * How PagedResponse.totalElements is computed for the employee list.
+ */
+public enum CountStrategy {
+    // select count(*) on every request
+    EXACT,
+    // exact count kept in memory, invalidated by writes in EmployeeService and after a TTL
+    CACHED,
+    // count(*) over () computed by the page query itself
+    WINDOWED,
+    // planner statistics, may be off by a few percent
+    ESTIMATED,
+    // no total at all: totalElements / totalPages are left out of the response
+    NONE;
+
+    public static CountStrategy from(String value) {
+        try {
+            return CountStrategy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown count strategy: " + value);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.model.EmailOutbox;
+import com.reactive.nexo.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the email outbox in the background, so requests never wait on the mail server.
+ *
+ * Every poll claims up to batch-size due rows (a claim is a lease: a row whose dispatcher
+ * died is picked up again once next_attempt_at passes), sends them in groups of
+ * smtp-batch-size messages over one SMTP connection each, with at most concurrency groups
+ * in flight on its own timed scheduler (email.outbox.scheduler.* meters), and records the outcome of every row. A failed row is retried
+ * after an exponential backoff with jitter, and marked FAILED after max-attempts.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final PasswordResetTokens passwordResetTokens;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final int smtpBatchSize;
+    private final int concurrency;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Scheduler smtpScheduler;
+    private Disposable polling;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 EmailService emailService,
+                                 PasswordResetTokens passwordResetTokens,
+                                 @Value("${email.outbox.enabled:true}") boolean enabled,
+                                 @Value("${email.outbox.poll-interval:2s}") Duration pollInterval,
+                                 @Value("${email.outbox.batch-size:100}") int batchSize,
+                                 @Value("${email.outbox.smtp-batch-size:20}") int smtpBatchSize,
+                                 @Value("${email.outbox.concurrency:2}") int concurrency,
+                                 @Value("${email.outbox.lease:2m}") Duration lease,
+                                 @Value("${email.outbox.initial-backoff:10s}") Duration initialBackoff,
+                                 @Value("${email.outbox.max-backoff:30m}") Duration maxBackoff,
+                                 @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.passwordResetTokens = passwordResetTokens;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.smtpBatchSize = smtpBatchSize;
+        this.concurrency = concurrency;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.sent = Counter.builder("email.outbox").tag("outcome", "sent").register(registry);
+        this.retried = Counter.builder("email.outbox").tag("outcome", "retried").register(registry);
+        this.failed = Counter.builder("email.outbox").tag("outcome", "failed").register(registry);
+        // one thread per concurrent SMTP connection
+        this.smtpScheduler = Micrometer.timedScheduler(Schedulers.newBoundedElastic(concurrency, Integer.MAX_VALUE, "email-outbox"),
+                registry, "email.outbox", Tags.empty());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("EmailOutboxDispatcher disabled");
+            return;
+        }
+        log.info("EmailOutboxDispatcher pollInterval={} batchSize={} smtpBatchSize={} concurrency={}",
+                pollInterval, batchSize, smtpBatchSize, concurrency);
+        polling = Flux.interval(pollInterval, pollInterval)
+                // a slow drain skips ticks instead of queueing them
+                .onBackpressureDrop()
+                .concatMap(tick -> drain()
+                        .onErrorResume(error -> {
+                            log.error("drain - outbox poll failed: {}", error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (polling != null) {
+            polling.dispose();
+        }
+        smtpScheduler.dispose();
+    }
+
+    /**
+     * One poll: claim the due rows, deliver them and record the outcomes. Emits the number of
+     * rows handled.
+     */
+    public Mono<Integer> drain() {
+        LocalDateTime now = LocalDateTime.now();
+        return outboxRepository.findDue(now, batchSize)
+                .concatMap(row -> outboxRepository.claim(row.getId(), row.getAttempts(), now.plus(lease))
+                        .filter(claimed -> claimed == 1)
+                        .map(claimed -> {
+                            row.setAttempts(row.getAttempts() + 1);
+                            return row;
+                        }))
+                .buffer(smtpBatchSize)
+                .flatMap(this::deliver, concurrency)
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> deliver(List<EmailOutbox> rows) {
+        return Mono.fromCallable(() -> {
+                    Map<SimpleMailMessage, EmailOutbox> messages = new LinkedHashMap<>();
+                    for (EmailOutbox row : rows) {
+                        // the token is issued at send time and never stored; a retry sends a new one
+                        String token = passwordResetTokens.issue(row.getRecipient(), row.getEmployeeId());
+                        messages.put(emailService.passwordResetMessage(row.getRecipient(), token), row);
+                    }
+                    Map<SimpleMailMessage, Exception> failures = emailService.send(new ArrayList<>(messages.keySet()));
+                    Map<EmailOutbox, Exception> outcome = new LinkedHashMap<>();
+                    messages.forEach((message, row) -> outcome.put(row, failures.get(message)));
+                    return outcome;
+                })
+                .subscribeOn(smtpScheduler)
+                .flatMap(this::record)
+                .thenReturn(rows.size());
+    }
+
+    private Mono<Void> record(Map<EmailOutbox, Exception> outcome) {
+        List<Long> delivered = new ArrayList<>();
+        List<Mono<Integer>> updates = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        outcome.forEach((row, error) -> {
+            if (error == null) {
+                delivered.add(row.getId());
+                return;
+            }
+            boolean giveUp = row.getAttempts() >= maxAttempts;
+            (giveUp ? failed : retried).increment();
+            String message = error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+            log.warn("deliver - outbox id={} attempt {} failed{}: {}", row.getId(), row.getAttempts(), giveUp ? ", giving up" : "", message);
+            updates.add(outboxRepository.markAttemptFailed(row.getId(), giveUp ? EmailOutbox.FAILED : EmailOutbox.PENDING,
+                    giveUp ? now : now.plus(backoff(row.getAttempts())), message.length() > 500 ? message.substring(0, 500) : message));
+        });
+        if (!delivered.isEmpty()) {
+            sent.increment(delivered.size());
+            updates.add(outboxRepository.markSent(delivered, now));
+        }
+        return Flux.concat(updates).then();
+    }
+
+    /**
+     * Delay before the next attempt: initial-backoff doubled per attempt up to max-backoff,
+     * then a random point in its upper half so retries of a batch do not stay in lockstep.
+     */
+    Duration backoff(int attempts) {
+        long cap = maxBackoff.toMillis();
+        long exponential = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        long delay = exponential <= 0 || exponential > cap ? cap : exponential;
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+}
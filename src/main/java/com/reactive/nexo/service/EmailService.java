@@ -1,20 +1,27 @@
 package com.reactive.nexo.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry registry;
 
     @Value("${email.from:${EMAIL_FROM:no-reply@nexosalud.com}}")
     private String fromEmail;
@@ -28,34 +35,46 @@ public class EmailService {
     @Value("${email.reset-password.website:${EMAIL_RESET_PASSWORD_WEBSITE:https://nexosalud.com/reset-password}}")
     private String resetPasswordWebsite;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, ObjectProvider<MeterRegistry> meterRegistry) {
         this.mailSender = mailSender;
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    /**
+     * Password reset message for the given address and token
+     */
+    public SimpleMailMessage passwordResetMessage(String toEmail, String resetToken) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(toEmail);
+        message.setSubject(resetPasswordSubject);
+        message.setText(buildPasswordResetEmailBody(resetToken));
+        return message;
     }
 
     /**
-     * Send password reset email
+     * Send the messages over a single SMTP connection. Blocking: call it off the event loop.
+     * Returns the messages that could not be sent with their cause (empty when all were sent).
+     * Timed as email.send, tagged outcome=success|partial|error.
      */
-    public Mono<Boolean> sendPasswordResetEmail(String toEmail, String resetToken) {
-        return Mono.fromCallable(() -> {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(toEmail);
-                message.setSubject(resetPasswordSubject);
-                
-                String emailBody = buildPasswordResetEmailBody(resetToken);
-                message.setText(emailBody);
-                
-                mailSender.send(message);
-                log.info("Password reset email sent successfully to: {}", toEmail);
-                return true;
-                
-            } catch (Exception e) {
-                log.error("Failed to send password reset email to {}: {}", toEmail, e.getMessage());
-                return false;
+    public Map<SimpleMailMessage, Exception> send(List<SimpleMailMessage> messages) {
+        Map<SimpleMailMessage, Exception> failed = new IdentityHashMap<>();
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            // per-message failures (connection failures are reported for every message)
+            e.getFailedMessages().forEach((message, cause) -> failed.put((SimpleMailMessage) message, cause));
+            if (failed.isEmpty()) {
+                messages.forEach(message -> failed.put(message, e));
             }
-        }).subscribeOn(Schedulers.boundedElastic())
-          .onErrorReturn(false);
+        } catch (MailException e) {
+            messages.forEach(message -> failed.put(message, e));
+        }
+        String outcome = failed.isEmpty() ? "success" : failed.size() < messages.size() ? "partial" : "error";
+        sample.stop(Timer.builder("email.send").tag("outcome", outcome).register(registry));
+        log.info("send - {} emails, {} failed", messages.size(), failed.size());
+        return failed;
     }
 
     private String buildPasswordResetEmailBody(String resetToken) {
@@ -66,10 +85,6 @@ public class EmailService {
         body.append("Si no solicitó este cambio, ignore este mensaje.\n\n");
         body.append("Atentamente,\n");
         body.append("Equipo Nexo Salud");
-        logger.info("Built password reset email body: {}", body.toString());
-        
         return body.toString();
     }
-
-    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.AttributeWithValuesDTO;
+import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import com.reactive.nexo.repository.AttributeEmployeeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads attributes and values for a batch of employees with a single set-based query
+ * and assembles the {@link EmployeeWithAttributesDTO}s in memory, instead of querying
+ * attributes and values once per employee / per attribute.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmployeeAttributeLoader {
+
+    private final AttributeEmployeeRepository attributeEmployeeRepository;
+
+    /**
+     * Load the attributes of the given employees grouped by employee id.
+     * A null attributeNames loads every attribute; an empty set loads none (and runs no query).
+     */
+    public Mono<Map<Integer, List<AttributeWithValuesDTO>>> loadAttributes(Collection<Integer> employeeIds, Set<String> attributeNames){
+        if(employeeIds.isEmpty() || (attributeNames != null && attributeNames.isEmpty())){
+            return Mono.just(Collections.emptyMap());
+        }
+        Flux<EmployeeAttributeValue> rows = attributeNames == null
+                ? attributeEmployeeRepository.findValuesByEmployeeIds(employeeIds)
+                : attributeEmployeeRepository.findValuesByEmployeeIdsAndNames(employeeIds, attributeNames);
+        return rows.collectList().map(EmployeeAttributeLoader::groupByEmployee);
+    }
+
+    /**
+     * Build the DTOs for the given employees, keeping their order. When masked is true the
+     * password and secret are replaced by "***" as the list endpoints do.
+     */
+    public Mono<List<EmployeeWithAttributesDTO>> assemble(List<Employee> employees, Set<String> attributeNames, boolean masked){
+        List<Integer> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+        return loadAttributes(ids, attributeNames)
+                .map(attributesByEmployee -> employees.stream()
+                        .map(employee -> toDTO(employee, attributesByEmployee.getOrDefault(employee.getId(), Collections.emptyList()), masked))
+                        .collect(Collectors.toList()));
+    }
+
+    public static EmployeeWithAttributesDTO toDTO(Employee employee, List<AttributeWithValuesDTO> attributes, boolean masked){
+        return new EmployeeWithAttributesDTO(
+                employee.getId(),
+                employee.getNames(),
+                employee.getLastnames(),
+                employee.getIdentification_type(),
+                employee.getIdentification_number(),
+                masked ? "***" : employee.getPassword(),
+                employee.getRol_id(),
+                masked ? "***" : employee.getSecret(),
+                employee.getVersion(),
+                attributes);
+    }
+
+    static Map<Integer, List<AttributeWithValuesDTO>> groupByEmployee(List<EmployeeAttributeValue> rows){
+        // rows are ordered by employee and attribute, so insertion order is the stored order
+        Map<Integer, Map<Integer, AttributeWithValuesDTO>> grouped = new HashMap<>();
+        for(EmployeeAttributeValue row : rows){
+            AttributeWithValuesDTO attribute = grouped
+                    .computeIfAbsent(row.getEmployeeId(), id -> new LinkedHashMap<>())
+                    .computeIfAbsent(row.getAttributeId(), id -> new AttributeWithValuesDTO(row.getNameAttribute(), new ArrayList<>()));
+            if(row.getValueAttribute() != null){
+                attribute.getValues().add(row.getValueAttribute());
+            }
+        }
+        Map<Integer, List<AttributeWithValuesDTO>> result = new HashMap<>();
+        grouped.forEach((employeeId, attributes) -> result.put(employeeId, new ArrayList<>(attributes.values())));
+        return result;
+    }
+}
@@ -0,0 +1,189 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.model.StoredAttributeValue;
+import com.reactive.nexo.model.ValueAttributeEmployee;
+import com.reactive.nexo.repository.AttributeEmployeeRepository;
+import com.reactive.nexo.repository.EmployeeBulkRepository;
+import com.reactive.nexo.repository.ValueAttributeEmployeeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Replaces the attributes of one employee with the requested map (PUT semantics) by diffing
+ * it against the stored attributes and applying only the differences, each kind of change
+ * as one set-based statement:
+ *
+ * - one read of the stored attributes and values
+ * - one delete of the value rows that go away (removed attributes included)
+ * - one delete of the removed attributes
+ * - one update per changed multiple flag value
+ * - one dialect upsert of the new attributes plus one read of their ids
+ * - one multi-row insert of the new values
+ *
+ * A PUT that changes nothing costs only the read. Within an attribute, values are changed in
+ * place (delete the missing ones, append the new ones) when that keeps the requested order;
+ * otherwise the attribute's values are rewritten.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EmployeeAttributeSync {
+
+    private final AttributeEmployeeRepository attributeEmployeeRepository;
+    private final ValueAttributeEmployeeRepository valueAttributeEmployeeRepository;
+    private final EmployeeBulkRepository bulkRepository;
+
+    public Mono<Void> sync(Integer employeeId, Map<String, List<String>> requested) {
+        Map<String, List<String>> desired = desired(requested);
+        return attributeEmployeeRepository.findStoredValuesByEmployeeId(employeeId)
+                .collectList()
+                .flatMap(rows -> apply(employeeId, desired, group(rows)));
+    }
+
+    /**
+     * Attributes of an employee that was just created: nothing is stored yet, so the read is
+     * skipped and only the upsert, the id read and the value insert run.
+     */
+    public Mono<Void> create(Integer employeeId, Map<String, List<String>> requested) {
+        return Mono.defer(() -> apply(employeeId, desired(requested), Collections.emptyMap()));
+    }
+
+    private static Map<String, List<String>> desired(Map<String, List<String>> requested) {
+        Map<String, List<String>> desired = new LinkedHashMap<>();
+        if (requested != null) {
+            requested.forEach((name, values) -> desired.put(name, values == null ? Collections.emptyList() : values));
+        }
+        return desired;
+    }
+
+    private Mono<Void> apply(Integer employeeId, Map<String, List<String>> desired, Map<String, StoredAttribute> stored) {
+        List<Integer> valueIdsToDelete = new ArrayList<>();
+        List<Integer> attributeIdsToDelete = new ArrayList<>();
+        List<Integer> becomeMultiple = new ArrayList<>();
+        List<Integer> becomeSingle = new ArrayList<>();
+        List<ValueAttributeEmployee> valuesToInsert = new ArrayList<>();
+        Map<String, Boolean> attributesToCreate = new LinkedHashMap<>();
+
+        stored.forEach((name, attribute) -> {
+            if (!desired.containsKey(name)) {
+                attributeIdsToDelete.add(attribute.id);
+                valueIdsToDelete.addAll(attribute.valueIds);
+            }
+        });
+        desired.forEach((name, values) -> {
+            boolean multiple = values.size() > 1;
+            StoredAttribute attribute = stored.get(name);
+            if (attribute == null) {
+                attributesToCreate.put(name, multiple);
+                return;
+            }
+            if (attribute.multiple != multiple) {
+                (multiple ? becomeMultiple : becomeSingle).add(attribute.id);
+            }
+            diffValues(attribute, values, valueIdsToDelete, valuesToInsert);
+        });
+
+        log.debug("attribute sync employeeId={} - create={} delete={} values -{} +{}", employeeId, attributesToCreate.keySet(),
+                attributeIdsToDelete, valueIdsToDelete.size(), valuesToInsert.size());
+        return whenNotEmpty(valueIdsToDelete, valueAttributeEmployeeRepository::deleteAllByIdIn)
+                .then(whenNotEmpty(attributeIdsToDelete, attributeEmployeeRepository::deleteAllByIdIn))
+                .then(whenNotEmpty(becomeMultiple, ids -> attributeEmployeeRepository.updateMultiple(ids, true)))
+                .then(whenNotEmpty(becomeSingle, ids -> attributeEmployeeRepository.updateMultiple(ids, false)))
+                .then(createAttributes(employeeId, attributesToCreate, desired, valuesToInsert))
+                .then(Mono.defer(() -> bulkRepository.insertValues(valuesToInsert)))
+                .then();
+    }
+
+    /**
+     * Upsert the new attributes and queue their values once their ids are known.
+     */
+    private Mono<Void> createAttributes(Integer employeeId, Map<String, Boolean> attributesToCreate,
+                                        Map<String, List<String>> desired, List<ValueAttributeEmployee> valuesToInsert) {
+        if (attributesToCreate.isEmpty()) {
+            return Mono.empty();
+        }
+        return attributeEmployeeRepository.upsertAll(employeeId, attributesToCreate)
+                .thenMany(attributeEmployeeRepository.findByEmployeeIdAndNames(employeeId, attributesToCreate.keySet()))
+                .doOnNext(created -> desired.get(created.getName_attribute())
+                        .forEach(value -> valuesToInsert.add(new ValueAttributeEmployee(null, created.getId(), value))))
+                .then();
+    }
+
+    private static void diffValues(StoredAttribute attribute, List<String> values,
+                                   List<Integer> valueIdsToDelete, List<ValueAttributeEmployee> valuesToInsert) {
+        if (attribute.values.equals(values)) {
+            return;
+        }
+        // multiset difference: stored values not requested go, requested values not stored come
+        Map<String, Integer> remaining = new HashMap<>();
+        values.forEach(value -> remaining.merge(value, 1, Integer::sum));
+        List<String> kept = new ArrayList<>();
+        List<Integer> dropped = new ArrayList<>();
+        for (int i = 0; i < attribute.values.size(); i++) {
+            String value = attribute.values.get(i);
+            if (remaining.getOrDefault(value, 0) > 0) {
+                remaining.merge(value, -1, Integer::sum);
+                kept.add(value);
+            } else {
+                dropped.add(attribute.valueIds.get(i));
+            }
+        }
+        List<String> added = new ArrayList<>();
+        for (String value : values) {
+            if (remaining.getOrDefault(value, 0) > 0) {
+                remaining.merge(value, -1, Integer::sum);
+                added.add(value);
+            }
+        }
+        List<String> result = new ArrayList<>(kept);
+        result.addAll(added);
+        if (!result.equals(values)) {
+            // an in-place change would not keep the requested order: rewrite this attribute's values
+            dropped = attribute.valueIds;
+            added = values;
+        }
+        valueIdsToDelete.addAll(dropped);
+        added.forEach(value -> valuesToInsert.add(new ValueAttributeEmployee(null, attribute.id, value)));
+    }
+
+    private static <T> Mono<Void> whenNotEmpty(Collection<T> ids, Function<Collection<T>, Mono<Integer>> statement) {
+        return ids.isEmpty() ? Mono.empty() : Mono.defer(() -> statement.apply(ids)).then();
+    }
+
+    private static Map<String, StoredAttribute> group(List<StoredAttributeValue> rows) {
+        // rows are ordered by attribute and value id, so list order is the stored order
+        Map<String, StoredAttribute> stored = new LinkedHashMap<>();
+        for (StoredAttributeValue row : rows) {
+            StoredAttribute attribute = stored.computeIfAbsent(row.getNameAttribute(),
+                    name -> new StoredAttribute(row.getAttributeId(), Boolean.TRUE.equals(row.getMultiple())));
+            if (row.getValueId() != null) {
+                attribute.valueIds.add(row.getValueId());
+                attribute.values.add(row.getValueAttribute());
+            }
+        }
+        return stored;
+    }
+
+    private static final class StoredAttribute {
+        private final Integer id;
+        private final boolean multiple;
+        private final List<Integer> valueIds = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        private StoredAttribute(Integer id, boolean multiple) {
+            this.id = id;
+            this.multiple = multiple;
+        }
+    }
+}
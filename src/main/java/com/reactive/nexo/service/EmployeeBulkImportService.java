@@ -0,0 +1,387 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.BulkImportResult;
+import com.reactive.nexo.dto.CreateEmployeeRequest;
+import com.reactive.nexo.model.AttributeEmployee;
+import com.reactive.nexo.model.EmailOutbox;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.model.ValueAttributeEmployee;
+import com.reactive.nexo.repository.EmployeeBulkRepository;
+import com.reactive.nexo.util.CsvLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of employees for POST /api/v1/employees/bulk.
+ *
+ * Rows are validated and their passwords hashed in parallel on the PasswordHasher pool, then
+ * written in chunks of employees.bulk.chunk-size: per chunk one identification pre-check,
+ * one multi-row insert per table (employees, attribute_employee, value_attribute_employee,
+ * and email_outbox for the welcome emails) and two lookups for the generated ids, all in one
+ * transaction. Rows whose identification
+ * already exists (or repeats within the request) are reported as conflicts and skipped; the
+ * rest of the chunk is still written. If the chunk hits a constraint anyway (a concurrent
+ * writer, a rol_id that does not exist), it is retried row by row: a row that breaks the unique
+ * identification is a conflict, any other integrity failure makes the row invalid.
+ */
+@Service
+@Slf4j
+public class EmployeeBulkImportService {
+
+    private static final Set<String> EMPLOYEE_COLUMNS = Set.of("names", "lastnames", "identification_type",
+            "identification_number", "password", "rol_id", "secret");
+    // separates the values of a multiple attribute in a CSV cell
+    private static final String CSV_VALUE_SEPARATOR = "\\|";
+
+    private final EmployeeBulkRepository bulkRepository;
+    private final PasswordHasher passwordHasher;
+    private final EmployeeCountService employeeCountService;
+    private final TransactionalOperator transactionalOperator;
+    private final int chunkSize;
+    private final int hashConcurrency;
+
+    public EmployeeBulkImportService(EmployeeBulkRepository bulkRepository,
+                                     PasswordHasher passwordHasher,
+                                     EmployeeCountService employeeCountService,
+                                     TransactionalOperator transactionalOperator,
+                                     @Value("${employees.bulk.chunk-size:500}") int chunkSize,
+                                     @Value("${employees.bulk.hash-concurrency:8}") int hashConcurrency) {
+        this.bulkRepository = bulkRepository;
+        this.passwordHasher = passwordHasher;
+        this.employeeCountService = employeeCountService;
+        this.transactionalOperator = transactionalOperator;
+        this.chunkSize = chunkSize;
+        this.hashConcurrency = hashConcurrency;
+    }
+
+    /**
+     * Import employees given as CreateEmployeeRequest objects (NDJSON body).
+     */
+    public Flux<BulkImportResult> importEmployees(Flux<CreateEmployeeRequest> requests) {
+        return Flux.defer(() -> {
+            AtomicInteger rowNumber = new AtomicInteger();
+            return importRows(requests.map(request -> new ImportRow(rowNumber.incrementAndGet(), request)));
+        });
+    }
+
+    /**
+     * Import employees from CSV lines. The first line is the header: the employee columns
+     * (names, lastnames, identification_type, identification_number, password, rol_id, secret)
+     * plus one column per attribute, whose cell holds the values separated by '|'.
+     */
+    public Flux<BulkImportResult> importCsv(Flux<String> lines) {
+        return lines.filter(line -> !line.isBlank())
+                .switchOnFirst((first, all) -> {
+                    if (!first.hasValue()) {
+                        return importRows(Flux.empty());
+                    }
+                    List<String> header = CsvLine.split(first.get()).stream().map(String::trim).collect(Collectors.toList());
+                    AtomicInteger rowNumber = new AtomicInteger();
+                    return importRows(all.skip(1).map(line -> fromCsv(rowNumber.incrementAndGet(), header, line)));
+                });
+    }
+
+    private Flux<BulkImportResult> importRows(Flux<ImportRow> rows) {
+        return Flux.defer(() -> {
+            Totals totals = new Totals();
+            // identifications written by earlier chunks of this request are caught by the pre-check
+            Set<String> seen = new HashSet<>();
+            return rows.map(EmployeeBulkImportService::validate)
+                    .flatMapSequential(this::hashPassword, hashConcurrency)
+                    .buffer(chunkSize)
+                    .concatMap(chunk -> importChunk(chunk, seen))
+                    .doOnNext(totals::add)
+                    .concatWith(Mono.fromSupplier(totals::summary));
+        });
+    }
+
+    private Flux<BulkImportResult> importChunk(List<ImportRow> chunk, Set<String> seen) {
+        return writeChunk(chunk.stream().filter(row -> row.status == null).collect(Collectors.toList()), seen)
+                .doOnNext(created -> {
+                    if (created > 0) {
+                        employeeCountService.invalidate();
+                    }
+                })
+                .flatMapMany(created -> {
+                    List<BulkImportResult> results = chunk.stream()
+                            .filter(row -> row.status != null)
+                            .map(row -> BulkImportResult.rejected(row.status, row.number, row.employee.getIdentification_type(),
+                                    row.employee.getIdentification_number(), row.message))
+                            .collect(Collectors.toList());
+                    int conflicts = (int) results.stream().filter(r -> BulkImportResult.CONFLICT.equals(r.getStatus())).count();
+                    results.add(BulkImportResult.totals(BulkImportResult.CHUNK, created, conflicts, results.size() - conflicts));
+                    return Flux.fromIterable(results);
+                });
+    }
+
+    /**
+     * Write the first row of each identification not seen yet in the request. A row repeating
+     * an identification is a conflict once that identification was written (or already existed);
+     * if the earlier row turned out invalid instead, the repeat gets its own chance.
+     */
+    private Mono<Integer> writeChunk(List<ImportRow> rows, Set<String> seen) {
+        List<ImportRow> candidates = new ArrayList<>();
+        List<ImportRow> repeated = new ArrayList<>();
+        for (ImportRow row : rows) {
+            (seen.add(row.key()) ? candidates : repeated).add(row);
+        }
+        return writeOrFallBack(candidates, seen)
+                .flatMap(created -> {
+                    List<ImportRow> retry = new ArrayList<>();
+                    for (ImportRow row : repeated) {
+                        if (seen.contains(row.key())) {
+                            row.reject(BulkImportResult.CONFLICT, "Identification repeated in the request");
+                        } else {
+                            retry.add(row);
+                        }
+                    }
+                    return retry.isEmpty() ? Mono.just(created) : writeChunk(retry, seen).map(more -> created + more);
+                });
+    }
+
+    private Mono<Integer> writeOrFallBack(List<ImportRow> candidates, Set<String> seen) {
+        return write(candidates)
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    if (candidates.size() == 1) {
+                        // only uq_employees_identification is a conflict; a missing rol or an oversized value is an invalid row
+                        if (e instanceof DuplicateKeyException) {
+                            candidates.get(0).reject(BulkImportResult.CONFLICT, "Employee with same identification already exists");
+                        } else {
+                            candidates.get(0).reject(BulkImportResult.INVALID, e.getMostSpecificCause().getMessage());
+                            // nothing was written for it: a later row with the same identification is not a repeat
+                            seen.remove(candidates.get(0).key());
+                        }
+                        return Mono.just(0);
+                    }
+                    log.warn("bulk import - chunk of {} rows hit a constraint, retrying row by row: {}", candidates.size(), e.getMessage());
+                    return Flux.fromIterable(candidates)
+                            .concatMap(row -> writeOrFallBack(List.of(row), seen))
+                            .reduce(0, Integer::sum);
+                });
+    }
+
+    /**
+     * Write the candidates that do not exist yet in one transaction; returns how many were created.
+     */
+    private Mono<Integer> write(List<ImportRow> candidates) {
+        if (candidates.isEmpty()) {
+            return Mono.just(0);
+        }
+        Mono<Integer> written = bulkRepository.findByIdentifications(employeesOf(candidates))
+                .map(existing -> key(existing.getIdentification_type(), existing.getIdentification_number()))
+                .collect(Collectors.toSet())
+                .flatMap(existing -> {
+                    List<ImportRow> toInsert = new ArrayList<>();
+                    for (ImportRow row : candidates) {
+                        if (existing.contains(row.key())) {
+                            row.reject(BulkImportResult.CONFLICT, "Employee with same identification already exists");
+                        } else {
+                            toInsert.add(row);
+                        }
+                    }
+                    if (toInsert.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    return bulkRepository.insertEmployees(employeesOf(toInsert))
+                            .thenMany(bulkRepository.findByIdentifications(employeesOf(toInsert)))
+                            .collectMap(inserted -> key(inserted.getIdentification_type(), inserted.getIdentification_number()), Employee::getId)
+                            .flatMap(ids -> writeAttributes(toInsert, ids))
+                            .then(Mono.defer(() -> bulkRepository.insertOutbox(welcomeResets(toInsert))))
+                            .thenReturn(toInsert.size());
+                });
+        return transactionalOperator.transactional(written);
+    }
+
+    private Mono<Long> writeAttributes(List<ImportRow> rows, Map<String, Integer> idsByKey) {
+        List<AttributeEmployee> attributes = new ArrayList<>();
+        for (ImportRow row : rows) {
+            Integer employeeId = idsByKey.get(row.key());
+            row.employee.setId(employeeId);
+            row.attributes.forEach((name, values) ->
+                    attributes.add(new AttributeEmployee(null, name, values.size() > 1, employeeId)));
+        }
+        if (attributes.isEmpty()) {
+            return Mono.just(0L);
+        }
+        List<Integer> employeeIds = rows.stream().map(row -> row.employee.getId()).collect(Collectors.toList());
+        return bulkRepository.insertAttributes(attributes)
+                .thenMany(bulkRepository.findAttributesByEmployeeIds(employeeIds))
+                .collectMap(attribute -> attribute.getEmployeeId() + "\u0000" + attribute.getName_attribute(), AttributeEmployee::getId)
+                .flatMap(attributeIds -> {
+                    List<ValueAttributeEmployee> values = new ArrayList<>();
+                    for (ImportRow row : rows) {
+                        row.attributes.forEach((name, attributeValues) -> {
+                            Integer attributeId = attributeIds.get(row.employee.getId() + "\u0000" + name);
+                            attributeValues.forEach(value -> values.add(new ValueAttributeEmployee(null, attributeId, value)));
+                        });
+                    }
+                    return bulkRepository.insertValues(values);
+                });
+    }
+
+    /**
+     * Welcome password reset emails for the new employees with an email (or correo) attribute,
+     * as createEmployeeWithAttributes queues them; written in the chunk's transaction.
+     */
+    private static List<EmailOutbox> welcomeResets(List<ImportRow> rows) {
+        List<EmailOutbox> emails = new ArrayList<>();
+        for (ImportRow row : rows) {
+            EmailOutbox.recipientOf(row.attributes)
+                    .ifPresent(email -> emails.add(EmailOutbox.passwordReset(row.employee.getId(), email)));
+        }
+        return emails;
+    }
+
+    private Mono<ImportRow> hashPassword(ImportRow row) {
+        String password = row.employee.getPassword();
+        if (row.status != null || password == null || PasswordHasher.isBCrypt(password)) {
+            return Mono.just(row);
+        }
+        // the bulk import keeps at most hashConcurrency hashes in flight; back off if interactive traffic fills the pool
+        return passwordHasher.encode(password)
+                .retryWhen(Retry.backoff(5, Duration.ofMillis(50)).filter(ServiceBusyException.class::isInstance))
+                .map(hash -> {
+                    row.employee.setPassword(hash);
+                    return row;
+                });
+    }
+
+    private static ImportRow validate(ImportRow row) {
+        if (row.status != null) {
+            return row;
+        }
+        Employee employee = row.employee;
+        String error = null;
+        if (isBlank(employee.getNames()) || isBlank(employee.getLastnames())
+                || isBlank(employee.getIdentification_type()) || isBlank(employee.getIdentification_number())) {
+            error = "names, lastnames, identification_type and identification_number are required";
+        } else if (employee.getNames().length() > 100 || employee.getLastnames().length() > 100
+                || employee.getIdentification_type().length() > 2 || employee.getIdentification_number().length() > 15) {
+            error = "Value too long";
+        } else if (row.attributes.keySet().stream().anyMatch(name -> isBlank(name) || name.length() > 100)
+                || row.attributes.values().stream().flatMap(List::stream).anyMatch(value -> value == null || value.length() > 100)) {
+            error = "Invalid attribute name or value";
+        }
+        if (error != null) {
+            row.reject(BulkImportResult.INVALID, error);
+        }
+        return row;
+    }
+
+    private static ImportRow fromCsv(int number, List<String> header, String line) {
+        List<String> cells = CsvLine.split(line);
+        ImportRow row = new ImportRow(number, new CreateEmployeeRequest());
+        if (cells.size() > header.size()) {
+            row.reject(BulkImportResult.INVALID, "More cells than header columns");
+            return row;
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            String column = header.get(i);
+            String cell = cells.get(i);
+            if (cell.isEmpty()) {
+                continue;
+            }
+            if (!EMPLOYEE_COLUMNS.contains(column)) {
+                row.attributes.put(column, Arrays.asList(cell.split(CSV_VALUE_SEPARATOR)));
+                continue;
+            }
+            switch (column) {
+                case "names": row.employee.setNames(cell); break;
+                case "lastnames": row.employee.setLastnames(cell); break;
+                case "identification_type": row.employee.setIdentification_type(cell); break;
+                case "identification_number": row.employee.setIdentification_number(cell); break;
+                case "password": row.employee.setPassword(cell); break;
+                case "secret": row.employee.setSecret(cell); break;
+                default:
+                    try {
+                        row.employee.setRol_id(Integer.valueOf(cell.trim()));
+                    } catch (NumberFormatException e) {
+                        row.reject(BulkImportResult.INVALID, "rol_id is not a number");
+                    }
+            }
+        }
+        return row;
+    }
+
+    private static List<Employee> employeesOf(List<ImportRow> rows) {
+        return rows.stream().map(row -> row.employee).collect(Collectors.toList());
+    }
+
+    private static String key(String identificationType, String identificationNumber) {
+        return identificationType + '\u0000' + identificationNumber;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * A request row on its way through the import; status is set when the row is rejected.
+     */
+    private static final class ImportRow {
+        private final int number;
+        private final Employee employee;
+        private final Map<String, List<String>> attributes;
+        private String status;
+        private String message;
+
+        private ImportRow(int number, CreateEmployeeRequest request) {
+            this.number = number;
+            this.employee = new Employee(null, request.getNames(), request.getLastnames(),
+                    request.getIdentification_type(), request.getIdentification_number());
+            this.employee.setPassword(request.getPassword());
+            this.employee.setRol_id(request.getRol_id());
+            this.employee.setSecret(request.getSecret());
+            this.attributes = new LinkedHashMap<>();
+            if (request.getAttributes() != null) {
+                request.getAttributes().forEach((name, values) -> attributes.put(name, values == null ? Collections.emptyList() : values));
+            }
+        }
+
+        private String key() {
+            return EmployeeBulkImportService.key(employee.getIdentification_type(), employee.getIdentification_number());
+        }
+
+        private void reject(String status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    private static final class Totals {
+        private int created;
+        private int conflicts;
+        private int invalid;
+
+        private void add(BulkImportResult result) {
+            if (BulkImportResult.CHUNK.equals(result.getStatus())) {
+                created += result.getCreated();
+                conflicts += result.getConflicts();
+                invalid += result.getInvalid();
+            }
+        }
+
+        private BulkImportResult summary() {
+            return BulkImportResult.totals(BulkImportResult.SUMMARY, created, conflicts, invalid);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.reactive.nexo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactive.nexo.dto.AttributeWithValuesDTO;
+import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.model.EmployeeVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process read-through cache of assembled {@link EmployeeWithAttributesDTO}s,
+ * keyed by id with a secondary (identification_type, identification_number) index.
+ * Entries expire after employees.cache.ttl and are evicted by size; EmployeeService
+ * invalidates them on every write. Hit/miss/eviction statistics are published as
+ * cache.* meters (employees.by-id, employees.by-identification).
+ */
+@Component
+@Slf4j
+public class EmployeeCache {
+
+    private final boolean enabled;
+    private final Cache<Integer, EmployeeWithAttributesDTO> byId;
+    private final Cache<String, Integer> idByIdentification;
+    // bumped by every invalidation; a load that started before it does not populate the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public EmployeeCache(@Value("${employees.cache.enabled:true}") boolean enabled,
+                         @Value("${employees.cache.max-size:10000}") long maxSize,
+                         @Value("${employees.cache.ttl:10m}") Duration ttl,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.idByIdentification = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        meterRegistry.ifAvailable(registry -> {
+            CaffeineCacheMetrics.monitor(registry, byId, "employees.by-id");
+            CaffeineCacheMetrics.monitor(registry, idByIdentification, "employees.by-identification");
+        });
+        log.info("EmployeeCache enabled={} maxSize={} ttl={}", enabled, maxSize, ttl);
+    }
+
+    /**
+     * Cached employee by id, loading it with the given loader on a miss. Callers get their
+     * own copy, so masking fields on the result does not alter the cached entry.
+     */
+    public Mono<EmployeeWithAttributesDTO> getById(Integer employeeId, Supplier<Mono<EmployeeWithAttributesDTO>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            EmployeeWithAttributesDTO cached = byId.getIfPresent(employeeId);
+            if (cached != null) {
+                return Mono.just(copyOf(cached));
+            }
+            return load(loader);
+        });
+    }
+
+    /**
+     * Cached employee by identification pair, loading it with the given loader on a miss.
+     */
+    public Mono<EmployeeWithAttributesDTO> getByIdentification(String identificationType, String identificationNumber,
+                                                              Supplier<Mono<EmployeeWithAttributesDTO>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            String key = identificationKey(identificationType, identificationNumber);
+            Integer employeeId = idByIdentification.getIfPresent(key);
+            EmployeeWithAttributesDTO cached = employeeId == null ? null : byId.getIfPresent(employeeId);
+            // the id entry may have been reloaded after an identification change
+            if (cached != null && key.equals(identificationKey(cached.getIdentification_type(), cached.getIdentification_number()))) {
+                return Mono.just(copyOf(cached));
+            }
+            return load(loader);
+        });
+    }
+
+    /**
+     * Version of the cached entry of an employee, or null when it is not cached. Entries are
+     * invalidated on every write, so a cached version is the current one.
+     */
+    public Long cachedVersion(Integer employeeId) {
+        EmployeeWithAttributesDTO cached = enabled ? byId.getIfPresent(employeeId) : null;
+        return cached == null ? null : cached.getVersion();
+    }
+
+    /**
+     * Id and version of the cached entry for an identification pair, or null when it is not cached.
+     */
+    public EmployeeVersion cachedVersion(String identificationType, String identificationNumber) {
+        if (!enabled) {
+            return null;
+        }
+        String key = identificationKey(identificationType, identificationNumber);
+        Integer employeeId = idByIdentification.getIfPresent(key);
+        EmployeeWithAttributesDTO cached = employeeId == null ? null : byId.getIfPresent(employeeId);
+        if (cached == null || !key.equals(identificationKey(cached.getIdentification_type(), cached.getIdentification_number()))) {
+            return null;
+        }
+        return new EmployeeVersion(cached.getId(), cached.getVersion());
+    }
+
+    /**
+     * Drop the cached entry of one employee. The identification index is checked against the
+     * entry on read, so it does not need to be cleaned here.
+     */
+    public void invalidate(Integer employeeId) {
+        generation.incrementAndGet();
+        if (employeeId != null) {
+            byId.invalidate(employeeId);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        idByIdentification.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private Mono<EmployeeWithAttributesDTO> load(Supplier<Mono<EmployeeWithAttributesDTO>> loader) {
+        long loadGeneration = generation.get();
+        return loader.get()
+                .map(loaded -> {
+                    if (generation.get() == loadGeneration) {
+                        byId.put(loaded.getId(), copyOf(loaded));
+                        idByIdentification.put(identificationKey(loaded.getIdentification_type(), loaded.getIdentification_number()), loaded.getId());
+                    }
+                    return loaded;
+                });
+    }
+
+    private static String identificationKey(String identificationType, String identificationNumber) {
+        return identificationType + '\u0000' + identificationNumber;
+    }
+
+    private static EmployeeWithAttributesDTO copyOf(EmployeeWithAttributesDTO source) {
+        List<AttributeWithValuesDTO> attributes = new ArrayList<>();
+        if (source.getAttributes() != null) {
+            for (AttributeWithValuesDTO attribute : source.getAttributes()) {
+                attributes.add(new AttributeWithValuesDTO(attribute.getAttribute_name(),
+                        attribute.getValues() == null ? null : new ArrayList<>(attribute.getValues())));
+            }
+        }
+        return new EmployeeWithAttributesDTO(source.getId(), source.getNames(), source.getLastnames(),
+                source.getIdentification_type(), source.getIdentification_number(), source.getPassword(),
+                source.getRol_id(), source.getSecret(), source.getVersion(), attributes);
+    }
+}
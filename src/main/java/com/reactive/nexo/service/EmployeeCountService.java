@@ -0,0 +1,84 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves the total number of employees for paginated responses according to a
+ * {@link CountStrategy}. The default strategy comes from employees.pagination.count-strategy
+ * and can be overridden per request.
+ */
+@Service
+@Slf4j
+public class EmployeeCountService {
+
+    private final EmployeeRepository employeeRepository;
+    private final CountStrategy defaultStrategy;
+    private final long cacheTtlMillis;
+    private final AtomicReference<CachedCount> cached = new AtomicReference<>();
+    // bumped by every invalidation; a cached value is only served while its generation is current
+    private final AtomicLong generation = new AtomicLong();
+
+    public EmployeeCountService(EmployeeRepository employeeRepository,
+                                @Value("${employees.pagination.count-strategy:exact}") String defaultStrategy,
+                                @Value("${employees.pagination.count-cache-ttl:5m}") Duration cacheTtl) {
+        this.employeeRepository = employeeRepository;
+        this.defaultStrategy = CountStrategy.from(defaultStrategy);
+        this.cacheTtlMillis = cacheTtl.toMillis();
+    }
+
+    public CountStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * Total for the given strategy. Empty for NONE. WINDOWED is computed by the page query,
+     * so callers only get here for it when that query cannot provide a total (empty page).
+     */
+    public Mono<Long> count(CountStrategy strategy) {
+        switch (strategy) {
+            case NONE:
+                return Mono.empty();
+            case CACHED:
+                return cachedCount();
+            case ESTIMATED:
+                // no statistics available (e.g. table never analyzed): fall back to the cached exact count
+                return employeeRepository.estimateCount().switchIfEmpty(Mono.defer(this::cachedCount));
+            default:
+                return employeeRepository.countAll();
+        }
+    }
+
+    /**
+     * Drop the cached count. Called by every EmployeeService write that adds or removes employees.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        cached.set(null);
+    }
+
+    private Mono<Long> cachedCount() {
+        long currentGeneration = generation.get();
+        CachedCount current = cached.get();
+        if (current != null && current.generation == currentGeneration
+                && System.currentTimeMillis() - current.loadedAt < cacheTtlMillis) {
+            return Mono.just(current.value);
+        }
+        return employeeRepository.countAll()
+                .doOnNext(value -> {
+                    // a write that happened while counting bumps the generation and makes this value unusable
+                    cached.set(new CachedCount(value, System.currentTimeMillis(), currentGeneration));
+                    log.debug("employee count cached: {}", value);
+                });
+    }
+
+    private record CachedCount(long value, long loadedAt, long generation) {
+    }
+}
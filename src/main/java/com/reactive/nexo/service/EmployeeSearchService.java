@@ -0,0 +1,123 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
+import com.reactive.nexo.dto.IdentificationPair;
+import com.reactive.nexo.dto.IdentificationSearchResult;
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.repository.EmployeeBulkRepository;
+import com.reactive.nexo.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch lookups for POST /api/v1/employees/search/id and /search/identification.
+ *
+ * Deliberately not @Transactional, unlike EmployeeService: inside a transaction (and with
+ * NOT_SUPPORTED, whose transaction synchronization still binds one connection to the call)
+ * every chunk would run on the same connection, one after another. Here each chunk acquires
+ * its own pooled connection, so employees.search.chunk-concurrency chunks really run at once.
+ */
+@Service
+public class EmployeeSearchService {
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeBulkRepository employeeBulkRepository;
+    private final EmployeeAttributeLoader employeeAttributeLoader;
+    private final int searchChunkSize;
+    private final int searchChunkConcurrency;
+
+    public EmployeeSearchService(EmployeeRepository employeeRepository,
+                                 EmployeeBulkRepository employeeBulkRepository,
+                                 EmployeeAttributeLoader employeeAttributeLoader,
+                                 @Value("${employees.search.chunk-size:200}") int searchChunkSize,
+                                 @Value("${employees.search.chunk-concurrency:4}") int searchChunkConcurrency) {
+        this.employeeRepository = employeeRepository;
+        this.employeeBulkRepository = employeeBulkRepository;
+        this.employeeAttributeLoader = employeeAttributeLoader;
+        this.searchChunkSize = searchChunkSize;
+        this.searchChunkConcurrency = searchChunkConcurrency;
+    }
+
+    /**
+     * Employees for the given ids, in the order the ids were requested (duplicates and
+     * unknown ids are skipped). Ids are looked up with one id IN (...) query per
+     * employees.search.chunk-size ids, running at most employees.search.chunk-concurrency
+     * chunks at a time, each on its own pooled connection.
+     */
+    public Flux<Employee> fetchEmployees(List<Integer> employeeIds) {
+        return fetchInRequestOrder(employeeIds, chunk -> employeeRepository.findAllByIdIn(chunk).collectList(), Employee::getId);
+    }
+
+    /**
+     * Same lookup as {@link #fetchEmployees(List)}, with the attributes of each chunk loaded by
+     * one batched query (null attributeNames loads all). Password and secret are masked.
+     */
+    public Flux<EmployeeWithAttributesDTO> fetchEmployeesWithAttributes(List<Integer> employeeIds, Set<String> attributeNames) {
+        return fetchInRequestOrder(employeeIds,
+                chunk -> employeeRepository.findAllByIdIn(chunk).collectList()
+                        .flatMap(employees -> employeeAttributeLoader.assemble(employees, attributeNames, true)),
+                EmployeeWithAttributesDTO::getId);
+    }
+
+    private <T> Flux<T> fetchInRequestOrder(List<Integer> employeeIds, Function<List<Integer>, Mono<List<T>>> loadChunk, Function<T, Integer> idOf) {
+        if(employeeIds == null || employeeIds.isEmpty()){
+            return Flux.empty();
+        }
+        List<Integer> distinctIds = employeeIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return Flux.fromIterable(distinctIds)
+                .buffer(searchChunkSize)
+                // chunks are emitted in request order even when a later one completes first
+                .flatMapSequential(chunk -> loadChunk.apply(chunk).map(found -> {
+                    Map<Integer, T> byId = found.stream().collect(Collectors.toMap(idOf, item -> item));
+                    return chunk.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+                }), searchChunkConcurrency)
+                .flatMapIterable(ordered -> ordered);
+    }
+
+    /**
+     * Employees for the given identification pairs, one result per pair in request order, with
+     * found false for pairs no employee has. Distinct pairs are looked up with one
+     * (identification_type, identification_number) IN (...) query per employees.search.chunk-size
+     * pairs plus one batched attribute query, like {@link #fetchEmployeesWithAttributes(List, Set)}.
+     * Types are matched in upper case; password and secret are masked.
+     */
+    public Flux<IdentificationSearchResult> fetchEmployeesByIdentifications(List<IdentificationPair> pairs, Set<String> attributeNames) {
+        if(pairs == null || pairs.isEmpty()){
+            return Flux.empty();
+        }
+        List<IdentificationPair> requested = pairs.stream()
+                .map(pair -> pair == null || pair.getIdentification_type() == null || pair.getIdentification_number() == null ? null
+                        : new IdentificationPair(pair.getIdentification_type().toUpperCase(), pair.getIdentification_number()))
+                .collect(Collectors.toList());
+        List<Employee> lookups = requested.stream().filter(Objects::nonNull).distinct()
+                .map(pair -> new Employee(null, null, null, pair.getIdentification_type(), pair.getIdentification_number()))
+                .collect(Collectors.toList());
+        return Flux.fromIterable(lookups)
+                .buffer(searchChunkSize)
+                .flatMap(chunk -> employeeBulkRepository.findEmployeesByIdentifications(chunk).collectList()
+                        .flatMap(employees -> employeeAttributeLoader.assemble(employees, attributeNames, true)), searchChunkConcurrency)
+                .flatMapIterable(found -> found)
+                .collectMap(employee -> new IdentificationPair(employee.getIdentification_type(), employee.getIdentification_number()))
+                .flatMapIterable(byPair -> {
+                    List<IdentificationSearchResult> results = new ArrayList<>(pairs.size());
+                    for (int i = 0; i < pairs.size(); i++) {
+                        IdentificationPair pair = requested.get(i);
+                        EmployeeWithAttributesDTO employee = pair == null ? null : byPair.get(pair);
+                        IdentificationPair echoed = pair != null ? pair : pairs.get(i) != null ? pairs.get(i) : new IdentificationPair();
+                        results.add(new IdentificationSearchResult(echoed.getIdentification_type(), echoed.getIdentification_number(),
+                                employee != null, employee));
+                    }
+                    return results;
+                });
+    }
+}
@@ -1,35 +1,45 @@
 package com.reactive.nexo.service;
 
-import com.reactive.nexo.model.AttributeEmployee;
+import com.reactive.nexo.model.EmailOutbox;
 import com.reactive.nexo.model.Employee;
-import com.reactive.nexo.model.ValueAttributeEmployee;
+import com.reactive.nexo.model.EmployeeAttributeValue;
+import com.reactive.nexo.model.EmployeeExportRow;
+import com.reactive.nexo.model.EmployeeVersion;
 import com.reactive.nexo.repository.AttributeEmployeeRepository;
+import com.reactive.nexo.repository.EmailOutboxRepository;
 import com.reactive.nexo.repository.EmployeeRepository;
-import com.reactive.nexo.repository.ValueAttributeEmployeeRepository;
 import com.reactive.nexo.dto.AttributeWithValuesDTO;
 import com.reactive.nexo.dto.EmployeeWithAttributesDTO;
 import com.reactive.nexo.dto.PagedResponse;
 import com.reactive.nexo.dto.AuthRequest;
 import com.reactive.nexo.dto.AuthResponse;
-import com.reactive.nexo.util.JwtUtil;
+import com.reactive.nexo.util.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.Map;
 import java.util.Collections;
 import java.util.stream.Collectors;
-import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,31 +56,42 @@ public class EmployeeService {
     private AttributeEmployeeRepository attributeEmployeeRepository;
 
     @Autowired
-    private ValueAttributeEmployeeRepository valueAttributeEmployeeRepository;
+    private EmployeeAttributeLoader employeeAttributeLoader;
 
     @Autowired
-    private com.reactive.nexo.service.ValueAttributeService valueAttributeService;
+    private EmployeeAttributeSync employeeAttributeSync;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private EmployeeCountService employeeCountService;
 
     @Autowired
-    private EmailService emailService;
+    private EmployeeCache employeeCache;
+
+    @Value("${employees.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${employees.delete.chunk-size:200}")
+    private int deleteChunkSize;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
 
     @Autowired
     private RolService rolService;
 
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     public Mono<Employee> createEmployee(Employee employee){
         // encode password if provided and not already encoded
-        if(employee.getPassword() != null && !isBCrypt(employee.getPassword())){
-            employee.setPassword(passwordEncoder.encode(employee.getPassword()));
-        }
-        // enforce uniqueness of (identification_type, identification_number)
-        return employeeRepository.findByIdentificationTypeAndNumber(employee.getIdentification_type(), employee.getIdentification_number())
-                .flatMap(existing -> Mono.<Employee>error(new ResponseStatusException(HttpStatus.CONFLICT, "Employee with same identification already exists")))
-                .switchIfEmpty(employeeRepository.save(employee));
+        return encodePassword(employee.getPassword())
+                .flatMap(password -> {
+                    password.ifPresent(employee::setPassword);
+                    // one insert: uniqueness of (identification_type, identification_number) is uq_employees_identification's job
+                    return employeeRepository.save(employee)
+                            .onErrorMap(DuplicateKeyException.class, e -> new ResponseStatusException(HttpStatus.CONFLICT, "Employee with same identification already exists"));
+                })
+                .flatMap(saved -> invalidateCaches(saved.getId(), true).thenReturn(saved));
     }
 
     public Flux<Employee> getAllEmployees(){
@@ -78,125 +99,213 @@ public class EmployeeService {
     }
 
     public Mono<PagedResponse<EmployeeWithAttributesDTO>> getAllEmployeesWithPagination(int page, int size, Set<String> attributes){
+        return getAllEmployeesWithPagination(page, size, attributes, null);
+    }
+
+    /**
+     * Offset pagination. The total is resolved with the given count strategy (the configured
+     * default when null); a page costs the page query, the batched attribute query and at most
+     * one count statement.
+     */
+    public Mono<PagedResponse<EmployeeWithAttributesDTO>> getAllEmployeesWithPagination(int page, int size, Set<String> attributes, CountStrategy countStrategy){
         int finalPage = page < 0 ? 0 : page;
         int finalSize = size <= 0 ? 10 : size;
         final int offset = finalPage * finalSize;
-        final Set<String> finalAttributes = attributes;
-        
-        return employeeRepository.countAll()
+        // no filter means no attributes in the list response
+        final Set<String> finalAttributes = attributes == null ? Collections.emptySet() : attributes;
+        final CountStrategy strategy = countStrategy == null ? employeeCountService.getDefaultStrategy() : countStrategy;
+
+        if(strategy == CountStrategy.WINDOWED){
+            return employeeRepository.findAllWithPaginationAndTotal(finalSize, offset)
+                    .collectList()
+                    .flatMap(rows -> {
+                        // past the end there is no row to carry the total, so count separately
+                        Mono<Long> total = rows.isEmpty() ? employeeCountService.count(CountStrategy.EXACT) : Mono.just(rows.get(0).getTotalCount());
+                        List<Employee> employees = new ArrayList<>(rows);
+                        return total.flatMap(totalElements -> employeeAttributeLoader.assemble(employees, finalAttributes, true)
+                                .map(content -> buildPage(content, finalPage, finalSize, totalElements, null)));
+                    });
+        }
+
+        // without an exact total, read one extra row to know whether this is the last page
+        final boolean exactTotal = strategy == CountStrategy.EXACT || strategy == CountStrategy.CACHED;
+        final int limit = exactTotal ? finalSize : finalSize + 1;
+        return employeeCountService.count(strategy)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
                 .flatMap(totalElements -> 
-                    employeeRepository.findAllWithPagination(finalSize, offset)
-                        .flatMap(employee -> 
-                            finalAttributes == null || finalAttributes.isEmpty() 
-                                ? Mono.just(new EmployeeWithAttributesDTO(employee.getId(), employee.getNames(), employee.getLastnames(), employee.getIdentification_type(), employee.getIdentification_number(), "***", employee.getRol_id(), "***", Collections.emptyList()))
-                                : getEmployeeWithFilteredAttributes(employee.getId(), finalAttributes)
-                        )
+                    employeeRepository.findAllWithPagination(limit, offset)
                         .collectList()
-                        .map(content -> {
-                            long totalPages = (totalElements + finalSize - 1) / finalSize;
-                            boolean isLast = finalPage >= totalPages - 1;
-                            return new PagedResponse<EmployeeWithAttributesDTO>(content, finalPage, finalSize, totalElements, totalPages, isLast);
+                        .flatMap(rows -> {
+                            Boolean hasMore = exactTotal ? null : rows.size() > finalSize;
+                            List<Employee> employees = rows.size() > finalSize ? rows.subList(0, finalSize) : rows;
+                            return employeeAttributeLoader.assemble(employees, finalAttributes, true)
+                                    .map(content -> buildPage(content, finalPage, finalSize, totalElements.orElse(null), hasMore));
                         })
                 );
     }
 
-    private Mono<EmployeeWithAttributesDTO> getEmployeeWithFilteredAttributes(Integer employeeId, Set<String> attributeNames){
-        return employeeRepository.findById(employeeId)
-            .flatMap(employee ->
-                attributeEmployeeRepository.findByEmployeeId(employeeId)
-                    .filter(attr -> attributeNames.contains(attr.getName_attribute()))
-                    .flatMap(attr -> 
-                        valueAttributeEmployeeRepository.findByAttributeId(attr.getId())
-                            .collectList()
-                            .map(values -> {
-                                List<String> valuesList = values.stream()
-                                    .map(ValueAttributeEmployee::getValueAttribute)
-                                    .collect(Collectors.toList());
-                                return new AttributeWithValuesDTO(
-                                    attr.getName_attribute(),
-                                    valuesList
-                                );
-                            })
-                    )
-                    .collectList()
-                    .map(attributes -> new EmployeeWithAttributesDTO(
-                        employee.getId(),
-                        employee.getNames(),
-                        employee.getLastnames(),
-                        employee.getIdentification_type(),
-                        employee.getIdentification_number(),
-                        "***",
-                        employee.getRol_id(),
-                        "***",
-                        attributes
-                    ))
-            );
+    /**
+     * Keyset pagination: returns the employees after the given cursor ordered by id.
+     * Reads size + 1 rows to know whether another page follows, so cost does not grow with depth.
+     * WINDOWED is served from the cached count here, as a window over "id > cursor" only sees the rest of the table.
+     */
+    public Mono<PagedResponse<EmployeeWithAttributesDTO>> getEmployeesAfterCursor(String after, int size, Set<String> attributes, CountStrategy countStrategy){
+        final int afterId = PageCursor.decode(after);
+        final int finalSize = size <= 0 ? 10 : size;
+        final Set<String> finalAttributes = attributes == null ? Collections.emptySet() : attributes;
+        CountStrategy strategy = countStrategy == null ? employeeCountService.getDefaultStrategy() : countStrategy;
+        final CountStrategy finalStrategy = strategy == CountStrategy.WINDOWED ? CountStrategy.CACHED : strategy;
+
+        return employeeCountService.count(finalStrategy)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(totalElements ->
+                    employeeRepository.findAllAfterId(afterId, finalSize + 1)
+                        .collectList()
+                        .flatMap(rows -> {
+                            boolean hasMore = rows.size() > finalSize;
+                            List<Employee> employees = hasMore ? rows.subList(0, finalSize) : rows;
+                            return employeeAttributeLoader.assemble(employees, finalAttributes, true)
+                                    .map(content -> buildPage(content, 0, finalSize, totalElements.orElse(null), hasMore));
+                        })
+                );
+    }
+
+    /**
+     * Employees whose attribute `name` has a value equal to (EXACT) or starting with (PREFIX)
+     * the given value, ordered by id and continued with the returned nextCursor. No total is
+     * computed; isLast comes from reading one extra row.
+     */
+    public Mono<PagedResponse<EmployeeWithAttributesDTO>> getEmployeesByAttribute(String name, String value, AttributeMatch match,
+                                                                                 String after, int size, Set<String> attributes){
+        final int afterId = PageCursor.decode(after);
+        final int finalSize = size <= 0 ? 10 : size;
+        final Set<String> finalAttributes = attributes == null ? Collections.emptySet() : attributes;
+        Flux<Employee> rows = match == AttributeMatch.PREFIX
+                ? employeeRepository.findByAttributeValuePatternAfterId(name, AttributeMatch.prefixPattern(value), afterId, finalSize + 1)
+                : employeeRepository.findByAttributeValueAfterId(name, value, afterId, finalSize + 1);
+        return rows.collectList()
+                .flatMap(found -> {
+                    boolean hasMore = found.size() > finalSize;
+                    List<Employee> employees = hasMore ? found.subList(0, finalSize) : found;
+                    return employeeAttributeLoader.assemble(employees, finalAttributes, true)
+                            .map(content -> buildPage(content, 0, finalSize, null, hasMore));
+                });
+    }
+
+    /**
+     * Build the page envelope. isLast comes from the look-ahead row when hasMore is known,
+     * otherwise from the total. The next cursor lets clients continue in keyset mode from any page.
+     */
+    private PagedResponse<EmployeeWithAttributesDTO> buildPage(List<EmployeeWithAttributesDTO> content, int page, int size, Long totalElements, Boolean hasMore){
+        Long totalPages = totalElements == null ? null : (totalElements + size - 1) / size;
+        boolean isLast = hasMore != null ? !hasMore : page >= totalPages - 1;
+        String nextCursor = isLast || content.isEmpty() ? null : PageCursor.encode(content.get(content.size() - 1).getId());
+        return new PagedResponse<EmployeeWithAttributesDTO>(content, page, size, totalElements, totalPages, isLast, nextCursor);
+    }
+
+    /**
+     * Stream the whole directory for the NDJSON export. A single ordered query joins the
+     * requested attribute values; consecutive rows of the same employee are folded into one
+     * DTO, so only one employee is held in memory at a time and Reactor demand flows back
+     * to the database fetch.
+     */
+    public Flux<EmployeeWithAttributesDTO> exportEmployees(Set<String> attributes){
+        final Set<String> finalAttributes = attributes == null ? Collections.emptySet() : attributes;
+        return employeeRepository.streamWithAttributes(finalAttributes, exportFetchSize)
+                .bufferUntilChanged(row -> row.getEmployee().getId())
+                .map(rows -> {
+                    Map<Integer, AttributeWithValuesDTO> byAttribute = new LinkedHashMap<>();
+                    for(EmployeeExportRow row : rows){
+                        EmployeeAttributeValue value = row.getAttributeValue();
+                        if(value == null) continue;
+                        AttributeWithValuesDTO attribute = byAttribute.computeIfAbsent(value.getAttributeId(),
+                                id -> new AttributeWithValuesDTO(value.getNameAttribute(), new ArrayList<>()));
+                        if(value.getValueAttribute() != null){
+                            attribute.getValues().add(value.getValueAttribute());
+                        }
+                    }
+                    return EmployeeAttributeLoader.toDTO(rows.get(0).getEmployee(), new ArrayList<>(byAttribute.values()), true);
+                });
     }
 
     public Mono<Employee> findById(Integer employeeId){
         return employeeRepository.findById(employeeId);
     }
 
+    /**
+     * Employee with all its attributes, served from the EmployeeCache when possible.
+     * A miss costs two statements: the employee and one batched attribute/value query.
+     */
     public Mono<EmployeeWithAttributesDTO> getEmployeeWithAttributes(Integer employeeId){
-    return employeeRepository.findById(employeeId)
-        .flatMap(employee ->
-            attributeEmployeeRepository.findByEmployeeId(employeeId)
-                .flatMap(attribute ->
-                    valueAttributeEmployeeRepository.findByAttributeId(attribute.getId())
-                        .map(ValueAttributeEmployee::getValueAttribute)
-                        .collectList()
-                        .map(values -> new AttributeWithValuesDTO(attribute.getName_attribute(), values))
-                )
-                .collectList()
-                .map(attrs -> new EmployeeWithAttributesDTO(employee.getId(), employee.getNames(), employee.getLastnames(), employee.getIdentification_type(), employee.getIdentification_number(), employee.getPassword(), employee.getRol_id(), employee.getSecret(), attrs))
-        );
+        return employeeCache.getById(employeeId, () -> employeeRepository.findById(employeeId)
+                .flatMap(employee -> employeeAttributeLoader.assemble(List.of(employee), null, false))
+                .map(list -> list.get(0)));
+    }
+
+    /**
+     * Current version of an employee, for answering If-None-Match: read from the cached entry
+     * when there is one, otherwise one single-column lookup. Empty when it does not exist.
+     */
+    public Mono<Long> getEmployeeVersion(Integer employeeId){
+        return Mono.defer(() -> {
+            Long cached = employeeCache.cachedVersion(employeeId);
+            return cached != null ? Mono.just(cached) : employeeRepository.findVersionById(employeeId);
+        });
+    }
+
+    /**
+     * Id and current version of the employee with an identification pair, like {@link #getEmployeeVersion(Integer)}.
+     */
+    public Mono<EmployeeVersion> getEmployeeVersionByIdentification(String identificationType, String identificationNumber){
+        return Mono.defer(() -> {
+            EmployeeVersion cached = employeeCache.cachedVersion(identificationType, identificationNumber);
+            return cached != null ? Mono.just(cached) : employeeRepository.findVersionByIdentification(identificationType, identificationNumber);
+        });
     }
 
+    /**
+     * Full update of an employee's own fields in one statement; uniqueness of the identification
+     * pair is left to uq_employees_identification (409).
+     */
     public Mono<Employee> updateEmployee(Integer employeeId,  Employee employee){
-        return employeeRepository.findById(employeeId)
-                .flatMap(dbEmployee ->
-                    // check if another employee already has the requested identification pair
-                    employeeRepository.findByIdentificationTypeAndNumber(employee.getIdentification_type(), employee.getIdentification_number())
-                        .flatMap(conflict -> {
-                            if(conflict.getId().equals(employeeId)){
-                                // same record — allow; update all fields
-                                dbEmployee.setNames(employee.getNames());
-                                dbEmployee.setLastnames(employee.getLastnames());
-                                dbEmployee.setIdentification_type(employee.getIdentification_type());
-                                dbEmployee.setIdentification_number(employee.getIdentification_number());
-                                dbEmployee.setRol_id(employee.getRol_id());
-                                // encode password if present and not already encoded
-                                if(employee.getPassword() != null && !isBCrypt(employee.getPassword())){
-                                    dbEmployee.setPassword(passwordEncoder.encode(employee.getPassword()));
-                                } else if(employee.getPassword() != null){
-                                    dbEmployee.setPassword(employee.getPassword());
-                                }
-                                return employeeRepository.save(dbEmployee);
-                            }
-                            return Mono.<Employee>error(new ResponseStatusException(HttpStatus.CONFLICT, "Another employee with same identification exists"));
-                        })
-                        .switchIfEmpty(Mono.defer(() -> {
-                            // different identification — update all fields
-                            dbEmployee.setNames(employee.getNames());
-                            dbEmployee.setLastnames(employee.getLastnames());
-                            dbEmployee.setIdentification_type(employee.getIdentification_type());
-                            dbEmployee.setIdentification_number(employee.getIdentification_number());
-                            dbEmployee.setRol_id(employee.getRol_id());
-                            // encode password if present and not already encoded
-                            if(employee.getPassword() != null && !isBCrypt(employee.getPassword())){
-                                dbEmployee.setPassword(passwordEncoder.encode(employee.getPassword()));
-                            } else if(employee.getPassword() != null){
-                                dbEmployee.setPassword(employee.getPassword());
-                            }
-                            return employeeRepository.save(dbEmployee);
-                        }))
-                );
+        // encode password if present and not already encoded, before touching the database
+        return encodePassword(employee.getPassword()).flatMap(password -> {
+                    Employee values = new Employee(null, employee.getNames(), employee.getLastnames(),
+                            employee.getIdentification_type(), employee.getIdentification_number());
+                    values.setRol_id(employee.getRol_id());
+                    values.setPassword(password.orElse(null));
+                    return updateReturning(employeeId, values, false, null);
+                })
+                .flatMap(saved -> invalidateCaches(employeeId, false).thenReturn(saved));
     }
 
-    public Mono<Employee> deleteEmployee(Integer employeeId){
-        return employeeRepository.findById(employeeId)
-                .flatMap(existingEmployee -> employeeRepository.delete(existingEmployee)
-                .then(Mono.just(existingEmployee)));
+    /**
+     * Delete one employee with a single statement; its attributes and values go with it through
+     * the ON DELETE CASCADE foreign keys. Empty when there was no such employee.
+     */
+    public Mono<Integer> deleteEmployee(Integer employeeId){
+        return employeeRepository.deleteAllByIdIn(List.of(employeeId))
+                .filter(deleted -> deleted > 0)
+                .flatMap(deleted -> invalidateCaches(employeeId, true).thenReturn(deleted));
+    }
+
+    /**
+     * Delete the employees with the given ids (unknown ids and duplicates are skipped), with one
+     * delete per employees.delete.chunk-size ids so no statement or cascade grows with the
+     * request. Returns the number of employees deleted.
+     */
+    public Mono<Long> deleteEmployees(List<Integer> employeeIds){
+        if(employeeIds == null || employeeIds.isEmpty()){
+            return Mono.just(0L);
+        }
+        List<Integer> distinctIds = employeeIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return Flux.fromIterable(distinctIds)
+                .buffer(deleteChunkSize)
+                .concatMap(chunk -> employeeRepository.deleteAllByIdIn(chunk)
+                        .flatMap(deleted -> invalidateCaches(chunk, deleted > 0).thenReturn(deleted)))
+                .reduce(0L, (total, deleted) -> total + deleted);
     }
 
     public Flux<Employee> findEmployeesByIdentificationNumber(String identificationNumber){
@@ -204,195 +313,138 @@ public class EmployeeService {
     }
 
     public Mono<EmployeeWithAttributesDTO> getEmployeeWithAttributesByIdentification(String identificationType, String identificationNumber){
-    return employeeRepository.findByIdentificationTypeAndNumber(identificationType, identificationNumber)
-        .flatMap(employee ->
-            attributeEmployeeRepository.findByEmployeeId(employee.getId())
-                .flatMap(attribute ->
-                    valueAttributeEmployeeRepository.findByAttributeId(attribute.getId())
-                        .map(ValueAttributeEmployee::getValueAttribute)
-                        .collectList()
-                        .map(values -> new AttributeWithValuesDTO(attribute.getName_attribute(), values))
-                )
-                .collectList()
-                .map(attrs -> new EmployeeWithAttributesDTO(employee.getId(), employee.getNames(), employee.getLastnames(), employee.getIdentification_type(), employee.getIdentification_number(), employee.getPassword(), employee.getRol_id(), employee.getSecret(), attrs))
-        );
-    }
-
-    public Flux<Employee> fetchEmployees(List<Integer> employeeIds) {
-        return Flux.fromIterable(employeeIds)
-                .parallel()
-                .runOn(Schedulers.boundedElastic())
-                .flatMap(i -> findById(i))
-                .ordered((u1, u2) -> u2.getId() - u1.getId());
+        return employeeCache.getByIdentification(identificationType, identificationNumber, () ->
+                employeeRepository.findByIdentificationTypeAndNumber(identificationType, identificationNumber)
+                        .flatMap(employee -> employeeAttributeLoader.assemble(List.of(employee), null, false))
+                        .map(list -> list.get(0)));
     }
 
     public Mono<Employee> createEmployeeWithAttributes(com.reactive.nexo.dto.CreateEmployeeRequest request){
         Employee toSave = new Employee(null, request.getNames(), request.getLastnames(), request.getIdentification_type(), request.getIdentification_number());
-        // include and encode password if provided
-        if(request.getPassword() != null){
-            if(!isBCrypt(request.getPassword())){
-                toSave.setPassword(passwordEncoder.encode(request.getPassword()));
-            } else {
-                toSave.setPassword(request.getPassword());
-            }
-        }
+        // include password if provided; createEmployee encodes it on the hashing pool
+        toSave.setPassword(request.getPassword());
         toSave.setRol_id(request.getRol_id());
         return createEmployee(toSave).flatMap(savedEmployee -> {
             Map<String, List<String>> attrs = request.getAttributes();
             if(attrs == null || attrs.isEmpty()){
                 return Mono.just(savedEmployee);
             }
-            return Flux.fromIterable(attrs.entrySet())
-                    .flatMap(e -> {
-                        String attrName = e.getKey();
-                        List<String> values = e.getValue() == null ? Collections.emptyList() : e.getValue();
-            AttributeEmployee attr = new AttributeEmployee(null, attrName, values.size() > 1, savedEmployee.getId());
-            return attributeEmployeeRepository.save(attr)
-                .flatMap(savedAttr -> Flux.fromIterable(values)
-                    .flatMap(v -> valueAttributeService.saveValue(new ValueAttributeEmployee(null, savedAttr.getId(), v)))
-                    .then(Mono.just(savedAttr)));
-                    })
-                    .collectList()
+            // set-based: one attribute upsert, one id read and one multi-row value insert
+            return employeeAttributeSync.create(savedEmployee.getId(), attrs)
+                    .then(enqueueWelcomeReset(savedEmployee.getId(), attrs))
+                    .then(invalidateCaches(savedEmployee.getId(), false))
                     .then(Mono.just(savedEmployee));
         });
     }
 
-        private boolean isBCrypt(String s){
-            if(s == null) return false;
-            return s.startsWith("$2a$") || s.startsWith("$2b$") || s.startsWith("$2y$");
-        }
-
-    public Mono<Employee> updateEmployeeWithAttributes(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request){
-        return employeeRepository.findById(employeeId)
-                .flatMap(dbEmployee ->
-                    // check identification uniqueness
-                    employeeRepository.findByIdentificationTypeAndNumber(request.getIdentification_type(), request.getIdentification_number())
-                        .flatMap(conflict -> {
-                log.info("updateEmployeeWithAttributes - found employee by identification: id={} for type={} number={} (updating employeeId={})",
-                    conflict.getId(), request.getIdentification_type(), request.getIdentification_number(), employeeId);
-                if(conflict.getId().equals(employeeId)){
-                                dbEmployee.setNames(request.getNames());
-                                dbEmployee.setLastnames(request.getLastnames());
-                                dbEmployee.setIdentification_type(request.getIdentification_type());
-                                dbEmployee.setIdentification_number(request.getIdentification_number());
-                                dbEmployee.setRol_id(request.getRol_id());
-                                // encode password if present and not already encoded
-                                if(request.getPassword() != null && !isBCrypt(request.getPassword())){
-                                    dbEmployee.setPassword(passwordEncoder.encode(request.getPassword()));
-                                } else if(request.getPassword() != null){
-                                    dbEmployee.setPassword(request.getPassword());
-                                }
-                                return employeeRepository.save(dbEmployee);
-                            }
-                            log.info("updateEmployeeWithAttributes - conflict with other employee id={}", conflict.getId());
-                            return Mono.<Employee>error(new ResponseStatusException(HttpStatus.CONFLICT, "Another employee with same identification exists"));
-                        })
-                        .switchIfEmpty(Mono.defer(() -> {
-                            dbEmployee.setNames(request.getNames());
-                            dbEmployee.setLastnames(request.getLastnames());
-                            dbEmployee.setIdentification_type(request.getIdentification_type());
-                            dbEmployee.setIdentification_number(request.getIdentification_number());
-                            dbEmployee.setRol_id(request.getRol_id());
-                            // encode password if present and not already encoded
-                            if(request.getPassword() != null && !isBCrypt(request.getPassword())){
-                                dbEmployee.setPassword(passwordEncoder.encode(request.getPassword()));
-                            } else if(request.getPassword() != null){
-                                dbEmployee.setPassword(request.getPassword());
-                            }
-                            return employeeRepository.save(dbEmployee);
-                        }))
-                ).flatMap(savedEmployee -> {
-                    Map<String, List<String>> attrs = request.getAttributes();
-                    final Map<String, List<String>> attrsLocal = (attrs == null) ? Collections.emptyMap() : attrs;
-
-                            // upsert provided attributes using a single safe MERGE (upsert) then load the attribute id
-                            Mono<Void> upserts = Flux.fromIterable(attrsLocal.entrySet())
-                                    .concatMap(e -> {
-                                        String name = e.getKey();
-                                        List<String> values = e.getValue() == null ? Collections.emptyList() : e.getValue();
-                                        log.info("updateEmployeeWithAttributes - upserting attribute name='{}' values={} for employeeId={}", name, values, savedEmployee.getId());
-
-                                        // Use repository MERGE to avoid duplicate insert races. After MERGE, fetch the attribute
-                                        // and then replace/insert values as required.
-                                                                return attributeEmployeeRepository.upsertByEmployeeIdAndName(savedEmployee.getId(), name, values.size() > 1)
-                                                                    .then(attributeEmployeeRepository.findByEmployeeIdAndName(savedEmployee.getId(), name))
-                                                .flatMap(foundAttr -> {
-                                                    log.info("updateEmployeeWithAttributes - attribute id={} ready for values update", foundAttr.getId());
-                                                    // delete existing values then insert new ones (replacement semantics for non-multiple)
-                            return valueAttributeEmployeeRepository.findByAttributeId(foundAttr.getId())
-                                .flatMap(valueAttributeEmployeeRepository::delete)
-                                .thenMany(Flux.fromIterable(values))
-                                .flatMap(v -> valueAttributeService.saveValue(new ValueAttributeEmployee(null, foundAttr.getId(), v)))
-                                .then();
-                                                });
-                                    })
-                                    .then();
-
-                    // delete attributes that are not present in request
-    Mono<Void> deletions = attributeEmployeeRepository.findByEmployeeId(savedEmployee.getId())
-        .filter(a -> !attrsLocal.containsKey(a.getName_attribute()))
-                .flatMap(a -> valueAttributeEmployeeRepository.findByAttributeId(a.getId()).flatMap(valueAttributeEmployeeRepository::delete).then(attributeEmployeeRepository.delete(a)))
+    /**
+     * New employees with an email (or correo) attribute get a password reset email. The outbox row
+     * is written in the creating transaction, so the email goes out if and only if the employee exists.
+     */
+    private Mono<Void> enqueueWelcomeReset(Integer employeeId, Map<String, List<String>> attributes){
+        return Mono.justOrEmpty(EmailOutbox.recipientOf(attributes))
+                .flatMap(email -> emailOutboxRepository.save(EmailOutbox.passwordReset(employeeId, email)))
                 .then();
-                    
-            // Note: the above deletion chain referenced attributeEmployeeRepository and valueAttributeEmployeeRepository
-            // but the inner delete call used the old repository names; fix now by delegating properly below.
-
-                    // Run upserts first, then deletions sequentially to avoid races where
-                    // a deletion may remove a just-created attribute and cause a duplicate
-                    // insert attempt. Doing them sequentially ensures stable, idempotent
-                    // upsert behavior for each provided attribute.
-                    return upserts.then(deletions).then(Mono.just(savedEmployee));
-                });
     }
 
     /**
-     * Patch an employee - partial update of only provided fields
+     * Invalidate the cached reads touched by a write: the employee entry and, when employees
+     * were added or removed, the cached count. It runs now and again once the surrounding
+     * transaction completes, so a read that raced with the uncommitted write cannot leave a
+     * stale entry behind.
      */
-    public Mono<Employee> partialUpdateEmployee(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request) {
-        return employeeRepository.findById(employeeId)
-                .flatMap(dbEmployee -> {
-                    // Check if identification_number is being changed and validate uniqueness
-                    if(request.getIdentification_number() != null && 
-                       !dbEmployee.getIdentification_number().equals(request.getIdentification_number())) {
-                        return employeeRepository.findByIdentificationTypeAndNumber(
-                                request.getIdentification_type() != null ? request.getIdentification_type() : dbEmployee.getIdentification_type(),
-                                request.getIdentification_number())
-                                .flatMap(conflict -> Mono.<Employee>error(new ResponseStatusException(HttpStatus.CONFLICT, "Another employee with same identification exists")))
-                                .switchIfEmpty(Mono.defer(() -> applyPartialUpdates(dbEmployee, request)));
-                    }
-                    // No identification change, apply partial updates directly
-                    return applyPartialUpdates(dbEmployee, request);
-                });
+    private Mono<Void> invalidateCaches(Integer employeeId, boolean countChanged){
+        return invalidateCaches(Collections.singletonList(employeeId), countChanged);
     }
 
-    private Mono<Employee> applyPartialUpdates(Employee dbEmployee, com.reactive.nexo.dto.CreateEmployeeRequest request) {
-        // Update only non-null fields
-        if(request.getNames() != null) {
-            dbEmployee.setNames(request.getNames());
-        }
-        if(request.getLastnames() != null) {
-            dbEmployee.setLastnames(request.getLastnames());
-        }
-        if(request.getIdentification_type() != null) {
-            dbEmployee.setIdentification_type(request.getIdentification_type());
-        }
-        if(request.getIdentification_number() != null) {
-            dbEmployee.setIdentification_number(request.getIdentification_number());
-        }
-        if(request.getPassword() != null) {
-            if(!isBCrypt(request.getPassword())){
-                dbEmployee.setPassword(passwordEncoder.encode(request.getPassword()));
-            } else {
-                dbEmployee.setPassword(request.getPassword());
+    private Mono<Void> invalidateCaches(Collection<Integer> employeeIds, boolean countChanged){
+        Runnable invalidate = () -> {
+            employeeIds.forEach(employeeCache::invalidate);
+            if(countChanged){
+                employeeCountService.invalidate();
             }
+        };
+        return Mono.fromRunnable(invalidate)
+                .then(TransactionSynchronizationManager.forCurrentTransaction())
+                .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        return Mono.fromRunnable(invalidate);
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Password to store for a write: empty when none was given, unchanged when it is already
+     * a BCrypt hash, otherwise hashed on the PasswordHasher pool (never on the event loop).
+     */
+    private Mono<Optional<String>> encodePassword(String password){
+        if(password == null){
+            return Mono.just(Optional.empty());
         }
-        if(request.getRol_id() != null) {
-            dbEmployee.setRol_id(request.getRol_id());
-        }
-        if(request.getSecret() != null) {
-            dbEmployee.setSecret(request.getSecret());
+        if(PasswordHasher.isBCrypt(password)){
+            return Mono.just(Optional.of(password));
         }
-        return employeeRepository.save(dbEmployee);
+        return passwordHasher.encode(password).map(Optional::of);
+    }
+
+    public Mono<Employee> updateEmployeeWithAttributes(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request){
+        return updateEmployeeWithAttributes(employeeId, request, null);
+    }
+
+    /**
+     * PUT of an employee and its attributes. The employee row is updated and read back in one
+     * statement; a duplicate identification is rejected by the unique constraint (409). A
+     * non-null requiredVersion (from If-Match) must be the stored version, otherwise the update
+     * fails with 412 Precondition Failed.
+     */
+    public Mono<Employee> updateEmployeeWithAttributes(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request, Long requiredVersion){
+        return encodePassword(request.getPassword()).flatMap(password -> {
+                    Employee values = new Employee(null, request.getNames(), request.getLastnames(),
+                            request.getIdentification_type(), request.getIdentification_number());
+                    values.setRol_id(request.getRol_id());
+                    values.setPassword(password.orElse(null));
+                    return updateReturning(employeeId, values, false, requiredVersion);
+                })
+                // diff the requested attributes against the stored ones and apply only the changes
+                .flatMap(savedEmployee -> employeeAttributeSync.sync(savedEmployee.getId(), request.getAttributes()).thenReturn(savedEmployee))
+                .flatMap(saved -> invalidateCaches(employeeId, false).thenReturn(saved));
+    }
+
+    public Mono<Employee> partialUpdateEmployee(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request) {
+        return partialUpdateEmployee(employeeId, request, null);
+    }
+
+    /**
+     * Patch an employee - partial update of only provided fields, in one statement. A non-null
+     * requiredVersion (from If-Match) must be the stored version, as for PUT.
+     */
+    public Mono<Employee> partialUpdateEmployee(Integer employeeId, com.reactive.nexo.dto.CreateEmployeeRequest request, Long requiredVersion) {
+        return encodePassword(request.getPassword()).flatMap(password -> {
+                    Employee values = new Employee(null, request.getNames(), request.getLastnames(),
+                            request.getIdentification_type(), request.getIdentification_number());
+                    values.setRol_id(request.getRol_id());
+                    values.setSecret(request.getSecret());
+                    values.setPassword(password.orElse(null));
+                    return updateReturning(employeeId, values, true, requiredVersion);
+                })
+                .flatMap(saved -> invalidateCaches(employeeId, false).thenReturn(saved));
+    }
+
+    /**
+     * Single-statement update of the employee row (see EmployeeRepositoryCustom#updateReturning).
+     * When no row matched and the client required a version, a second lookup tells a stale
+     * If-Match (412) from a missing employee (empty); the common path costs one round trip.
+     */
+    private Mono<Employee> updateReturning(Integer employeeId, Employee values, boolean partial, Long requiredVersion){
+        return employeeRepository.updateReturning(employeeId, values, partial, requiredVersion)
+                .onErrorMap(DuplicateKeyException.class, e -> new ResponseStatusException(HttpStatus.CONFLICT, "Another employee with same identification exists"))
+                .switchIfEmpty(Mono.defer(() -> requiredVersion == null
+                        ? Mono.empty()
+                        : employeeRepository.findVersionById(employeeId).flatMap(stored -> Mono.error(new ResponseStatusException(
+                                HttpStatus.PRECONDITION_FAILED, "Employee was modified (If-Match does not match)")))));
     }
 
     /**
@@ -405,39 +457,58 @@ public class EmployeeService {
         //return employeeRepository.findById(employeeTmp.getId())
         return employeeRepository.findByIdentificationTypeAndNumber(request.getIdentification_type(), request.getIdentification_number())
                 .flatMap(employee -> {
-
-                    logger.info("Este es un mensaje de información:"+ employee.getIdentification_type());
                     if (employee.getPassword() == null) {
                         return Mono.<AuthResponse>error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No password set for user"));
                     }
-                    logger.info("Este es un mensaje de información:"+ employee.getPassword());
-                    if (!passwordEncoder.matches(request.getPassword(), employee.getPassword())) {
-                        return Mono.<AuthResponse>error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
-                    }
-                    logger.info("Este es un mensaje de información:"+ employee.getNames());
-                    logger.info("Este es un mensaje de información:"+ employee.getRol_id());
-                    logger.info("Este es un mensaje de información:"+ employee.getSecret());
-                    // fetch role and permission
-                    if (employee.getRol_id() == null) {
-                        AuthResponse r = new AuthResponse(employee.getId(), employee.getNames(), employee.getLastnames(), employee.getIdentification_type(), employee.getIdentification_number(), null, null, null, Collections.emptyList());
-                        return Mono.just(r);
-                    }                    
-                    logger.info("Este es un mensaje de información:"+ employee.getNames());
-                    return rolService.getRolWithPermissions(employee.getRol_id())
-                            .map(rolWithPermissions -> new AuthResponse(
-                                    employee.getId(),
-                                    employee.getNames(),
-                                    employee.getLastnames(),
-                                    employee.getIdentification_type(),
-                                    employee.getIdentification_number(),
-                                    employee.getRol_id(),
-                                    rolWithPermissions.getName(),
-                                    employee.getSecret(),
-                                    rolWithPermissions.getPermissions()
-                            ));
+                    // BCrypt verification runs on the PasswordHasher pool; a full queue surfaces as 503
+                    return passwordHasher.matches(request.getPassword(), employee.getPassword())
+                            .flatMap(matches -> {
+                                if (!matches) {
+                                    return Mono.<AuthResponse>error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+                                }
+                                if (passwordHasher.needsRehash(employee.getPassword())) {
+                                    rehashInBackground(employee, request.getPassword());
+                                }
+                                return authResponse(employee);
+                            });
                 });
     }
 
+    /**
+     * Replace a hash stored with an outdated BCrypt cost, without delaying the login response.
+     * The update only applies if the stored hash is still the one verified, so a concurrent
+     * password change wins; failures (e.g. a saturated hashing pool) just leave the old hash.
+     */
+    private void rehashInBackground(Employee employee, String rawPassword) {
+        String previousHash = employee.getPassword();
+        passwordHasher.encode(rawPassword)
+                .flatMap(newHash -> employeeRepository.updatePasswordIfUnchanged(newHash, employee.getId(), previousHash))
+                .filter(updated -> updated > 0)
+                .flatMap(updated -> invalidateCaches(employee.getId(), false))
+                .subscribe(null, error -> logger.warn("rehash of employee {} skipped: {}", employee.getId(), error.getMessage()),
+                        () -> logger.debug("employee {} password rehashed with strength {}", employee.getId(), passwordHasher.getStrength()));
+    }
+
+    private Mono<AuthResponse> authResponse(Employee employee) {
+        // fetch role and permission
+        if (employee.getRol_id() == null) {
+            AuthResponse r = new AuthResponse(employee.getId(), employee.getNames(), employee.getLastnames(), employee.getIdentification_type(), employee.getIdentification_number(), null, null, null, Collections.emptyList());
+            return Mono.just(r);
+        }
+        return rolService.getRolWithPermissions(employee.getRol_id())
+                .map(rolWithPermissions -> new AuthResponse(
+                        employee.getId(),
+                        employee.getNames(),
+                        employee.getLastnames(),
+                        employee.getIdentification_type(),
+                        employee.getIdentification_number(),
+                        employee.getRol_id(),
+                        rolWithPermissions.getName(),
+                        employee.getSecret(),
+                        rolWithPermissions.getPermissions()
+                ));
+    }
+
     /**
      * Reset password - sends email with JWT token
      */
@@ -448,15 +519,9 @@ public class EmployeeService {
                     // Get employee email from attributes
                     return getEmployeeEmail(employeeId)
                             .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Employee email not found")))
-                            .flatMap(email -> {
-                                // Generate reset token
-                                String resetToken = jwtUtil.generatePasswordResetToken(email,employeeId.toString());
-                                log.info("Generated password reset token for employee {}:{} {}", employeeId,email, 
-                                        resetToken.substring(0, Math.min(resetToken.length(), 20)) + "...");
-                                
-                                // Send email
-                                return emailService.sendPasswordResetEmail(email, resetToken);
-                            });
+                            // queued in the outbox; EmailOutboxDispatcher issues the token and sends it
+                            .flatMap(email -> emailOutboxRepository.save(EmailOutbox.passwordReset(employeeId, email)))
+                            .map(queued -> true);
                 });
     }
 
@@ -472,16 +537,14 @@ public class EmployeeService {
     }
 
     /**
-     * Get employee email from attributes
+     * Get employee email from attributes (the same email / correo attributes the welcome email uses)
      */
     private Mono<String> getEmployeeEmail(Integer employeeId) {
-        return attributeEmployeeRepository.findByEmployeeId(employeeId)
-                .filter(attr -> "email".equals(attr.getName_attribute()))
-                .next() // Take the first email attribute
-                .flatMap(emailAttribute -> 
-                    valueAttributeEmployeeRepository.findByAttributeId(emailAttribute.getId())
-                            .map(ValueAttributeEmployee::getValueAttribute)
-                            .next() // Take the first value
-                );
+        // one indexed lookup of the email attributes instead of reading every attribute of the employee
+        return attributeEmployeeRepository.findValuesByEmployeeIdsAndNames(List.of(employeeId), EmailOutbox.EMAIL_ATTRIBUTES)
+                .filter(row -> row.getValueAttribute() != null)
+                .collect(Collectors.groupingBy(EmployeeAttributeValue::getNameAttribute,
+                        Collectors.mapping(EmployeeAttributeValue::getValueAttribute, Collectors.toList())))
+                .flatMap(byName -> Mono.justOrEmpty(EmailOutbox.recipientOf(byName)));
     }
 }
@@ -0,0 +1,208 @@
+package com.reactive.nexo.service;
+
+import com.reactive.nexo.util.RequestTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated pool sized to the available cores,
+ * off the Netty event loop. The pool has a bounded queue: when it is full the work is
+ * rejected right away with {@link ServiceBusyException} (503 + Retry-After) instead of
+ * piling up latency for every caller.
+ *
+ * The BCrypt cost is password-hashing.strength when set; otherwise it is calibrated at
+ * startup to the highest cost whose verification stays within
+ * password-hashing.target-verify-time on this machine (bounded by min/max-strength).
+ * Hashes stored with a different cost are reported by {@link #needsRehash(String)}.
+ *
+ * Meters: password.hash (timer, tags operation=encode|matches and outcome=success|error),
+ * password.hash.queue and password.hash.active (gauges), password.hash.rejected (counter),
+ * password.hash.strength (gauge), and the executor.* meters of the pool (name=bcrypt), where
+ * executor.idle is the time a request waited in the queue.
+ * Hashing time is also added to the RequestTiming of the calling request (Server-Timing bcrypt).
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final int strength;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService timedExecutor;
+    private final Duration retryAfter;
+    private final MeterRegistry registry;
+    private final Counter rejected;
+
+    public PasswordHasher(@Value("${password-hashing.threads:0}") int threads,
+                          @Value("${password-hashing.queue-capacity:256}") int queueCapacity,
+                          @Value("${password-hashing.retry-after:1s}") Duration retryAfter,
+                          @Value("${password-hashing.strength:0}") int strength,
+                          @Value("${password-hashing.target-verify-time:80ms}") Duration targetVerifyTime,
+                          @Value("${password-hashing.min-strength:10}") int minStrength,
+                          @Value("${password-hashing.max-strength:16}") int maxStrength,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.strength = strength > 0 ? strength : calibrate(targetVerifyTime, minStrength, maxStrength);
+        this.encoder = new BCryptPasswordEncoder(this.strength);
+        this.retryAfter = retryAfter;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.timedExecutor = ExecutorServiceMetrics.monitor(registry, executor, "bcrypt");
+        this.rejected = Counter.builder("password.hash.rejected").register(registry);
+        Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        Gauge.builder("password.hash.strength", this, PasswordHasher::getStrength).register(registry);
+        log.info("PasswordHasher pool threads={} queueCapacity={} strength={}", poolSize, queueCapacity, this.strength);
+    }
+
+    /**
+     * Highest BCrypt cost in [minStrength, maxStrength] whose verification takes at most the
+     * target time on this machine. Each extra cost point doubles the work, so calibration
+     * stops as soon as the next cost would exceed the target; minStrength is returned even
+     * when it is already slower than the target.
+     */
+    public static int calibrate(Duration targetVerifyTime, int minStrength, int maxStrength) {
+        long target = targetVerifyTime.toNanos();
+        int chosen = minStrength;
+        long elapsed = measureVerify(chosen);
+        while (chosen < maxStrength && elapsed * 2 <= target) {
+            chosen++;
+            elapsed = measureVerify(chosen);
+        }
+        log.info("PasswordHasher calibrated strength={} verify={}ms target={}ms",
+                chosen, TimeUnit.NANOSECONDS.toMillis(elapsed), targetVerifyTime.toMillis());
+        return chosen;
+    }
+
+    private static long measureVerify(int strength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(strength);
+        String hash = probe.encode(CALIBRATION_PASSWORD);
+        // best of two runs, so JIT warm-up does not inflate the measurement
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            probe.matches(CALIBRATION_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Whether a stored hash was produced with a cost other than the current one and should be
+     * replaced the next time the raw password is known (i.e. on a successful login).
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return costOf(encodedPassword) != strength;
+    }
+
+    /**
+     * Cost encoded in a BCrypt hash ($2a$10$...), or -1 when the value is not a BCrypt hash.
+     */
+    public static int costOf(String encodedPassword) {
+        if (!isBCrypt(encodedPassword) || encodedPassword.length() < 7) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * BCrypt hash of the raw password, computed on the hashing pool
+     */
+    public Mono<String> encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword), "encode");
+    }
+
+    /**
+     * Verify a raw password against a BCrypt hash on the hashing pool. A null raw password or hash never matches.
+     */
+    public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return Mono.just(false);
+        }
+        return submit(() -> encoder.matches(rawPassword, encodedPassword), "matches");
+    }
+
+    public static boolean isBCrypt(String s) {
+        if (s == null) return false;
+        return s.startsWith("$2a$") || s.startsWith("$2b$") || s.startsWith("$2y$");
+    }
+
+    private <T> Mono<T> submit(Callable<T> work, String operation) {
+        return Mono.create(sink -> {
+            Optional<RequestTiming> timing = RequestTiming.from(sink.contextView());
+            try {
+                Future<?> future = timedExecutor.submit(() -> {
+                    // stopped before emitting: the subscriber may continue on this thread
+                    Timer.Sample sample = Timer.start(registry);
+                    T result;
+                    try {
+                        result = work.call();
+                    } catch (Throwable e) {
+                        long elapsed = sample.stop(hashTimer(operation, "error"));
+                        timing.ifPresent(t -> t.addBcrypt(elapsed));
+                        sink.error(e);
+                        return;
+                    }
+                    long elapsed = sample.stop(hashTimer(operation, "success"));
+                    timing.ifPresent(t -> t.addBcrypt(elapsed));
+                    sink.success(result);
+                });
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                log.warn("PasswordHasher - queue full ({} waiting), rejecting request", executor.getQueue().size());
+                sink.error(new ServiceBusyException("Too many concurrent password operations", retryAfter));
+            }
+        });
+    }
+
+    private Timer hashTimer(String operation, String outcome) {
+        return Timer.builder("password.hash").tag("operation", operation).tag("outcome", outcome).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+package com.reactive.nexo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.reactive.nexo.dto.ResetTokenClaims;
+import com.reactive.nexo.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Issues and verifies password reset tokens. Token ids (jti) that were consumed or revoked
+ * are kept in a bounded in-process store until the token would have expired anyway, so a
+ * used token is rejected from memory, without a database lookup. Issuing a new token for an
+ * employee revokes the one issued before, so only the latest emailed link works.
+ *
+ * The store is per instance and bounded by jwt.revoked-tokens.max-size: size it above the
+ * number of tokens revoked within one jwt.reset-password-expiration window
+ * (cache.evictions of jwt.revoked-tokens should stay at 0).
+ */
+@Component
+@Slf4j
+public class PasswordResetTokens {
+
+    private final JwtUtil jwtUtil;
+    // revoked jti -> expiration of the token
+    private final Cache<String, Instant> revoked;
+    // employee id -> jti of the last token issued to it
+    private final Cache<Integer, String> lastIssued;
+
+    public PasswordResetTokens(JwtUtil jwtUtil,
+                               @Value("${jwt.revoked-tokens.max-size:100000}") long maxSize,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.revoked = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Instant>() {
+                    @Override
+                    public long expireAfterCreate(String jti, Instant expiresAt, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jti, Instant expiresAt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(jti, expiresAt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jti, Instant expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.lastIssued = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(jwtUtil.getResetPasswordExpiration()))
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, revoked, "jwt.revoked-tokens"));
+    }
+
+    /**
+     * New reset token for the employee; the previous one issued by this instance is revoked.
+     */
+    public String issue(String employeeEmail, Integer employeeId) {
+        String token = jwtUtil.generatePasswordResetToken(employeeEmail, employeeId.toString());
+        Claims claims = jwtUtil.extractClaims(token);
+        String previous = lastIssued.asMap().put(employeeId, claims.getId());
+        if (previous != null) {
+            revoked.put(previous, claims.getExpiration().toInstant());
+        }
+        return token;
+    }
+
+    /**
+     * Claims of a valid reset token, or null when the token is malformed, expired, not a reset
+     * token, or was consumed / revoked.
+     */
+    public ResetTokenClaims verify(String token) {
+        Claims claims = token == null || token.isBlank() ? null : jwtUtil.verifyPasswordResetToken(token);
+        if (claims == null) {
+            return null;
+        }
+        if (revoked.getIfPresent(claims.getId()) != null) {
+            log.info("verify - rejected revoked reset token jti={}", claims.getId());
+            return null;
+        }
+        return new ResetTokenClaims(
+                Integer.valueOf((String) claims.get("employee_id")),
+                (String) claims.get("employee_email"),
+                claims.getId(),
+                claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
+    }
+
+    /**
+     * Mark a token as used or revoked; true if it was valid until now. To be called by the step
+     * that completes the reset, so the same link cannot be used twice.
+     */
+    public boolean revoke(String token) {
+        ResetTokenClaims claims = verify(token);
+        if (claims == null) {
+            return false;
+        }
+        revoked.put(claims.getToken_id(), claims.getExpires_at());
+        lastIssued.asMap().remove(claims.getEmployee_id(), claims.getToken_id());
+        return true;
+    }
+}
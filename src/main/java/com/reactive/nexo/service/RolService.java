@@ -7,12 +7,20 @@ import com.reactive.nexo.repository.PermissionRepository;
 import com.reactive.nexo.repository.RolRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +33,10 @@ public class RolService {
     @Autowired
     private PermissionRepository permissionRepository;
 
+    // Tabla rol -> permisos en memoria; se reconstruye completa tras cada cambio de roles o permisos
+    private final AtomicReference<PermissionTable> permissionTable = new AtomicReference<>();
+    private final AtomicLong reloadSequence = new AtomicLong();
+
     /**
      * Obtener todos los roles
      */
@@ -58,42 +70,82 @@ public class RolService {
             .doOnError(error -> log.error("getRolWithPermissions - error fetching role: {}", error.getMessage()));
     }*/
 
+    /**
+     * Rol con sus permisos agrupados por método, servido desde la tabla en memoria sin
+     * acceder a la base de datos. Vacío si el rol no existe.
+     */
     public Mono<RolWithPermissionDTO> getRolWithPermissions(Integer rolId) {
-        log.info("getRolWithPermissions - fetching role with permissions, rolId={}", rolId);
+        log.debug("getRolWithPermissions - rolId={}", rolId);
+        return snapshot()
+            .flatMap(table -> Mono.justOrEmpty(table.get(rolId)))
+            // copia superficial: las listas de permisos son inmutables
+            .map(rol -> new RolWithPermissionDTO(rol.getId(), rol.getName(), rol.getPermissions()));
+    }
 
-        Mono<Rol> rolMono = rolRepository.findById(rolId);
-        
-        // Creamos un Mono que agrupa todos los permisos por método (GET -> [e1, e2], POST -> [e3])
-        Mono<Map<String, List<String>>> permissionsMapMono = permissionRepository.findByRolId(rolId)
-            .collectMultimap(Permission::getMethod, Permission::getEndpoint)
-            // Convertimos Multimap (que usa Collection) a un Map estándar (que usa List)
-            .map(multimap -> multimap.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> List.copyOf(entry.getValue())))
-            );
-
-        // Combinamos el Rol y el Mapa de Permisos cuando ambos estén listos
-        return Mono.zip(rolMono, permissionsMapMono)
-            .map(tuple -> {
-                Rol rol = tuple.getT1();
-                Map<String, List<String>> permissionMap = tuple.getT2();
-
-                // Transformamos el mapa a la lista de objetos JSON [{Method: [Endpoint]}, ...]
-                List<Map<String, List<String>>> formattedPermissions = permissionMap.entrySet().stream()
-                    .map(entry -> Collections.singletonMap(entry.getKey(), entry.getValue()))
-                    .collect(Collectors.toList());
-
-                return new RolWithPermissionDTO(rol.getId(), rol.getName(), formattedPermissions);
-            })
-            .doOnSuccess(result -> log.info("getRolWithPermissions - successfully fetched role with {} method groups", 
-                result.getPermissions() != null ? result.getPermissions().size() : 0))
-            .doOnError(error -> log.error("getRolWithPermissions - error fetching role: {}", error.getMessage()));
+    /**
+     * Recarga la tabla rol -> permisos (dos consultas) y la publica de forma atómica.
+     * Si dos recargas se solapan, gana la que empezó después.
+     */
+    public Mono<Map<Integer, RolWithPermissionDTO>> reloadPermissions() {
+        return Mono.defer(() -> {
+            long sequence = reloadSequence.incrementAndGet();
+            return Mono.zip(
+                    rolRepository.findAll().collectList(),
+                    permissionRepository.findAll().collectList())
+                .map(tuple -> buildTable(tuple.getT1(), tuple.getT2()))
+                .doOnNext(table -> {
+                    PermissionTable published = permissionTable.updateAndGet(current ->
+                        current != null && current.sequence() > sequence ? current : new PermissionTable(sequence, table));
+                    log.info("reloadPermissions - {} roles loaded (sequence={})", published.roles().size(), published.sequence());
+                })
+                .doOnError(error -> log.error("reloadPermissions - error loading roles: {}", error.getMessage()));
+        });
     }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPermissionsOnStartup() {
+        reloadPermissions().subscribe(
+            table -> { },
+            error -> log.error("loadPermissionsOnStartup - roles will be loaded on first use: {}", error.getMessage()));
+    }
+
+    private Mono<Map<Integer, RolWithPermissionDTO>> snapshot() {
+        PermissionTable current = permissionTable.get();
+        return current != null ? Mono.just(current.roles()) : reloadPermissions();
+    }
+
+    static Map<Integer, RolWithPermissionDTO> buildTable(List<Rol> roles, List<Permission> permissions) {
+        // Agrupamos los permisos por rol y método (GET -> [e1, e2], POST -> [e3]) en orden de creación
+        Map<Integer, Map<String, List<String>>> byRol = new HashMap<>();
+        permissions.stream()
+            .sorted(Comparator.comparing(Permission::getId))
+            .forEach(permission -> byRol
+                .computeIfAbsent(permission.getRol_id(), id -> new LinkedHashMap<>())
+                .computeIfAbsent(permission.getMethod(), method -> new ArrayList<>())
+                .add(permission.getEndpoint()));
+
+        Map<Integer, RolWithPermissionDTO> table = new HashMap<>();
+        for (Rol rol : roles) {
+            // Transformamos el mapa a la lista de objetos JSON [{Method: [Endpoint]}, ...]
+            List<Map<String, List<String>>> formattedPermissions = byRol.getOrDefault(rol.getId(), Collections.emptyMap())
+                .entrySet().stream()
+                .map(entry -> Collections.singletonMap(entry.getKey(), List.copyOf(entry.getValue())))
+                .collect(Collectors.toUnmodifiableList());
+            table.put(rol.getId(), new RolWithPermissionDTO(rol.getId(), rol.getName(), formattedPermissions));
+        }
+        return Map.copyOf(table);
+    }
+
+    private record PermissionTable(long sequence, Map<Integer, RolWithPermissionDTO> roles) {
+    }
+
     /**
      * Crear un nuevo rol
      */
     public Mono<Rol> createRol(Rol rol) {
         log.info("createRol - creating new role with name={}", rol.getName());
         return rolRepository.save(rol)
+            .flatMap(saved -> reloadPermissions().thenReturn(saved))
             .doOnSuccess(saved -> log.info("createRol - role created with id={}", saved.getId()))
             .doOnError(error -> log.error("createRol - error creating role: {}", error.getMessage()));
     }
@@ -104,6 +156,7 @@ public class RolService {
     public Mono<Permission> createPermission(Permission permission) {
         log.info("createPermission - creating permission={} for rolId={}", permission.getRol_id());
         return permissionRepository.save(permission)
+            .flatMap(saved -> reloadPermissions().thenReturn(saved))
             .doOnSuccess(saved -> log.info("createPermission - permission created with id={}", saved.getId()))
             .doOnError(error -> log.error("createPermission - error creating permission: {}", error.getMessage()));
     }
@@ -118,6 +171,7 @@ public class RolService {
                 existing.setName(rol.getName());
                 return rolRepository.save(existing);
             })
+            .flatMap(saved -> reloadPermissions().thenReturn(saved))
             .doOnSuccess(updated -> log.info("updateRol - role updated"))
             .doOnError(error -> log.error("updateRol - error updating role: {}", error.getMessage()));
     }
@@ -128,6 +182,8 @@ public class RolService {
     public Mono<Void> deleteRol(Integer rolId) {
         log.info("deleteRol - deleting role id={}", rolId);
         return rolRepository.deleteById(rolId)
+            .then(reloadPermissions())
+            .then()
             .doOnSuccess(v -> log.info("deleteRol - role deleted"))
             .doOnError(error -> log.error("deleteRol - error deleting role: {}", error.getMessage()));
     }
@@ -138,6 +194,8 @@ public class RolService {
     public Mono<Void> deletePermission(Integer permissionId) {
         log.info("deletePermission - deleting permission id={}", permissionId);
         return permissionRepository.deleteById(permissionId)
+            .then(reloadPermissions())
+            .then()
             .doOnSuccess(v -> log.info("deletePermission - permission deleted"))
             .doOnError(error -> log.error("deletePermission - error deleting permission: {}", error.getMessage()));
     }
@@ -0,0 +1,73 @@
+package com.reactive.nexo.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ETags of the single-resource reads. An employee's tag is its id and row version, so it can
+ * be compared without loading the employee; a rol's tag is a digest of its permission table
+ * entry, which is already in memory.
+ */
+public final class EntityTag {
+
+    private EntityTag() {
+    }
+
+    /**
+     * Tag of one version of an employee, e.g. "42-7"
+     */
+    public static String ofEmployee(Integer employeeId, Long version) {
+        return "\"" + employeeId + "-" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * Tag of a representation that has no version: the digest of its content
+     */
+    public static String ofContent(Object content) {
+        return "\"" + DigestUtils.md5DigestAsHex(String.valueOf(content).getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * If-None-Match check (weak comparison): true when the header lists the tag or is "*".
+     */
+    public static boolean matchesNoneMatch(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || stripWeak(value).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version an If-Match header requires of the given employee: null for "*" (any version),
+     * -1 when the header does not name a version of this employee, so the write fails its
+     * precondition. Weak tags never match (strong comparison).
+     */
+    public static Long requiredEmployeeVersion(String ifMatch, Integer employeeId) {
+        String prefix = "\"" + employeeId + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return null;
+            }
+            if (value.startsWith(prefix) && value.endsWith("\"")) {
+                try {
+                    return Long.parseLong(value.substring(prefix.length(), value.length() - 1));
+                } catch (NumberFormatException e) {
+                    // not one of our tags
+                }
+            }
+        }
+        return -1L;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,6 +1,7 @@
 package com.reactive.nexo.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -12,19 +13,28 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Component
 @Slf4j
 public class JwtUtil {
 
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationAndValidation1234567890}")
-    private String jwtSecret;
+    public static final String PASSWORD_RESET_PURPOSE = "password_reset";
 
-    @Value("${jwt.reset-password-expiration:3600000}")  // Default 1 hour in milliseconds
-    private long resetPasswordExpiration;
+    private final long resetPasswordExpiration;
+    // both are immutable and thread-safe: built once instead of on every sign / parse
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtUtil(@Value("${jwt.secret:mySecretKeyForJWTTokenGenerationAndValidation1234567890}") String jwtSecret,
+                   @Value("${jwt.reset-password-expiration:3600000}") long resetPasswordExpiration) {  // Default 1 hour in milliseconds
+        this.resetPasswordExpiration = resetPasswordExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    public long getResetPasswordExpiration() {
+        return resetPasswordExpiration;
     }
 
     /**
@@ -34,13 +44,15 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("employee_email", employeeEmail);
         claims.put("employee_id", employeeId);
-        claims.put("purpose", "password_reset");
+        claims.put("purpose", PASSWORD_RESET_PURPOSE);
 
+        // jti identifies the token in the revoked token store
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + resetPasswordExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -49,17 +61,25 @@ public class JwtUtil {
      */
     public Claims extractClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             log.warn("Failed to extract claims from token: {}", e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Claims of a password reset token with a valid signature, not expired, issued for
+     * password reset and carrying a token id; null otherwise
+     */
+    public Claims verifyPasswordResetToken(String token) {
+        Claims claims = extractClaims(token);
+        if (claims == null || !PASSWORD_RESET_PURPOSE.equals(claims.get("purpose")) || claims.getId() == null) {
+            return null;
+        }
+        return claims;
+    }
+
     /**
      * Validate a password reset token
      */
@@ -70,7 +90,7 @@ public class JwtUtil {
             
             // Check if token is for password reset
             String purpose = (String) claims.get("purpose");
-            if (!"password_reset".equals(purpose)) return false;
+            if (!PASSWORD_RESET_PURPOSE.equals(purpose)) return false;
             
             // Check if token is not expired
             Date expiration = claims.getExpiration();
@@ -91,7 +111,7 @@ public class JwtUtil {
             if (claims == null) return null;
             
             String purpose = (String) claims.get("purpose");
-            if (!"password_reset".equals(purpose)) return null;
+            if (!PASSWORD_RESET_PURPOSE.equals(purpose)) return null;
             
             String employeeId = (String) claims.get("employee_id");
             return employeeId != null ? Integer.parseInt(employeeId) : null;
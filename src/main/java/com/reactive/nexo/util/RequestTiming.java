@@ -0,0 +1,76 @@
+package com.reactive.nexo.util;
+
+import reactor.util.context.ContextView;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statements and time spent on behalf of one HTTP request. RequestTimingConfiguration puts
+ * one in the Reactor context of every request; the R2DBC proxy listener, PasswordHasher and
+ * the JSON encoder add to it from whatever thread they run on.
+ */
+public final class RequestTiming {
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder bcryptNanos = new LongAdder();
+    private final LongAdder serializeNanos = new LongAdder();
+
+    /**
+     * The timing of the request being served, if any (background work has none)
+     */
+    public static Optional<RequestTiming> from(ContextView context) {
+        return context.getOrEmpty(RequestTiming.class);
+    }
+
+    public void addStatements(int count) {
+        statements.add(count);
+    }
+
+    public void addDb(long nanos) {
+        dbNanos.add(nanos);
+    }
+
+    public void addBcrypt(long nanos) {
+        bcryptNanos.add(nanos);
+    }
+
+    public void addSerialize(long nanos) {
+        serializeNanos.add(nanos);
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public double getDbMillis() {
+        return millis(dbNanos.sum());
+    }
+
+    public double getBcryptMillis() {
+        return millis(bcryptNanos.sum());
+    }
+
+    public double getSerializeMillis() {
+        return millis(serializeNanos.sum());
+    }
+
+    public double getTotalMillis() {
+        return millis(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Server-Timing header value, e.g. db;desc="3 statements";dur=4.2, bcrypt;dur=0.0, serialize;dur=0.3, total;dur=6.1
+     */
+    public String serverTiming() {
+        return String.format(Locale.ROOT, "db;desc=\"%d statements\";dur=%.1f, bcrypt;dur=%.1f, serialize;dur=%.1f, total;dur=%.1f",
+                getStatements(), getDbMillis(), getBcryptMillis(), getSerializeMillis(), getTotalMillis());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -1,9 +1,5 @@
-
-DROP TABLE IF EXISTS value_attribute_employee CASCADE;
-DROP TABLE IF EXISTS attribute_employee CASCADE;
-DROP TABLE IF EXISTS permission CASCADE;
-DROP TABLE IF EXISTS employees CASCADE;
-DROP TABLE IF EXISTS rol CASCADE;
+-- Tables as created by the former schema.sql. Databases that already have them are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and start at V2.
 
 CREATE TABLE rol (
 	id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
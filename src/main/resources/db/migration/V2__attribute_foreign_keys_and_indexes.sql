@@ -0,0 +1,29 @@
+-- Attributes and values were linked by convention only. Drop the rows whose owner is gone,
+-- then enforce the links so deleting an employee removes its attributes and values.
+
+DELETE FROM value_attribute_employee
+WHERE attribute_id IS NULL
+   OR NOT EXISTS (SELECT 1 FROM attribute_employee a WHERE a.id = value_attribute_employee.attribute_id);
+
+DELETE FROM attribute_employee
+WHERE employee_id IS NULL
+   OR NOT EXISTS (SELECT 1 FROM employees e WHERE e.id = attribute_employee.employee_id);
+
+DELETE FROM value_attribute_employee
+WHERE NOT EXISTS (SELECT 1 FROM attribute_employee a WHERE a.id = value_attribute_employee.attribute_id);
+
+ALTER TABLE attribute_employee ALTER COLUMN employee_id SET NOT NULL;
+ALTER TABLE value_attribute_employee ALTER COLUMN attribute_id SET NOT NULL;
+
+ALTER TABLE attribute_employee ADD CONSTRAINT fk_attribute_employee_employee
+	FOREIGN KEY (employee_id) REFERENCES employees(id) ON DELETE CASCADE;
+ALTER TABLE value_attribute_employee ADD CONSTRAINT fk_value_attribute_employee_attribute
+	FOREIGN KEY (attribute_id) REFERENCES attribute_employee(id) ON DELETE CASCADE;
+
+-- attribute_employee.employee_id is served by uq_employee_attribute (employee_id, name_attribute).
+-- value_attribute_employee.attribute_id: values per attribute, and the exact value lookups of /by-attribute
+CREATE INDEX IF NOT EXISTS idx_value_attribute_employee_attribute_value ON value_attribute_employee (attribute_id, value_attribute);
+-- employees by attribute name, ordered by employee (/by-attribute keyset paging)
+CREATE INDEX IF NOT EXISTS idx_attribute_employee_name_employee ON attribute_employee (name_attribute, employee_id);
+-- role deletes and the employees-of-a-role checks behind fk_employees_rol
+CREATE INDEX IF NOT EXISTS idx_employees_rol ON employees (rol_id);
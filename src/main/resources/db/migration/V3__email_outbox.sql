@@ -0,0 +1,21 @@
+-- Emails to send, written in the transaction of the change that triggers them and drained by
+-- EmailOutboxDispatcher. status: PENDING (due at next_attempt_at), SENDING (claimed by a
+-- dispatcher until next_attempt_at, then claimable again), SENT, FAILED (gave up).
+
+CREATE TABLE email_outbox (
+	id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	kind VARCHAR(30) NOT NULL,
+	employee_id INT,
+	recipient VARCHAR(255) NOT NULL,
+	status VARCHAR(10) NOT NULL,
+	attempts INT NOT NULL DEFAULT 0,
+	next_attempt_at TIMESTAMP NOT NULL,
+	last_error VARCHAR(500),
+	created_at TIMESTAMP NOT NULL,
+	sent_at TIMESTAMP,
+	CONSTRAINT fk_email_outbox_employee FOREIGN KEY (employee_id) REFERENCES employees(id) ON DELETE CASCADE
+);
+
+-- the dispatcher poll: due rows that are not finished, oldest first
+CREATE INDEX idx_email_outbox_due ON email_outbox (status, next_attempt_at);
+CREATE INDEX idx_email_outbox_employee ON email_outbox (employee_id);
@@ -0,0 +1,4 @@
+-- Row version of an employee, bumped by every write to the employee or its attributes.
+-- It is the ETag of the employee reads and the optimistic lock of PUT / PATCH (If-Match).
+
+ALTER TABLE employees ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,188 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.service.EmployeeCache;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Employee and rol reads carry an ETag and answer If-None-Match with 304; PUT and PATCH
+ * honour If-Match against the employee's row version.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class ConditionalRequestTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+        employeeCache.invalidateAll();
+
+        Map<?, ?> created = webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Ana\",\"lastnames\":\"Rios\",\"identification_type\":\"CC\",\"identification_number\":\"5001\","
+                        + "\"attributes\":{\"telefono\":[\"3005001\"]}}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Map.class)
+                .returnResult().getResponseBody();
+        employeeId = (Integer) created.get("id");
+    }
+
+    @Test
+    public void unchangedEmployeeIsNotModified(){
+        String etag = getEtag();
+        assertEquals("\"" + employeeId + "-0\"", etag);
+
+        // warm cache: answered without touching the database
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+        assertEquals(0, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        // cold cache: one version lookup instead of the employee and its attributes
+        employeeCache.invalidateAll();
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        webTestClient.get().uri("/api/v1/employees/by-identification/cc/5001")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void writesChangeTheTag(){
+        String etag = getEtag();
+
+        String patched = webTestClient.patch().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastnames\":\"Rios Mora\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotEquals(etag, patched);
+
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, patched)
+                .expectBody().jsonPath("$.lastnames").isEqualTo("Rios Mora");
+    }
+
+    @Test
+    public void ifMatchGuardsUpdates(){
+        String etag = getEtag();
+        String put = "{\"names\":\"Ana\",\"lastnames\":\"Rios\",\"identification_type\":\"CC\",\"identification_number\":\"5001\","
+                + "\"attributes\":{\"telefono\":[\"3110000\"]}}";
+
+        String updated = webTestClient.put().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(put)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertEquals("\"" + employeeId + "-1\"", updated);
+
+        // the first tag is stale now
+        webTestClient.put().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(put)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.patch().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Otra\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, updated)
+                .expectBody()
+                .jsonPath("$.names").isEqualTo("Ana")
+                .jsonPath("$.attributes[0].values[0]").isEqualTo("3110000");
+    }
+
+    @Test
+    public void rolReadsAreTagged(){
+        Integer rolId = testData.insert("INSERT INTO rol (name) VALUES ('ETAG')");
+        webTestClient.post().uri("/api/v1/rols/{id}/permission", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"method\":\"GET\",\"endpoint\":\"/api/v1/employees\"}")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+
+        String etag = webTestClient.get().uri("/api/v1/rols/{id}", rolId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/rols/{id}", rolId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        assertEquals(0, statementCounter.count());
+
+        webTestClient.put().uri("/api/v1/rols/{id}", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"ETAG2\"}")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/rols/{id}", rolId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("ETAG2");
+    }
+
+    private String getEtag(){
+        return webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+    }
+}
@@ -0,0 +1,67 @@
+package com.reactive.nexo.test.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * The R2DBC connection factory is a pool sized from spring.r2dbc.pool.* and its acquired,
+ * idle and pending connections are published as gauges.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ConnectionPoolMetricsTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void poolIsConfiguredAndExposedOnTheMetricsEndpoint(){
+        assertInstanceOf(ConnectionPool.class, connectionFactory);
+
+        webTestClient.get().uri("/actuator/metrics/r2dbc.pool.max.allocated")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").isEqualTo(10.0);
+        webTestClient.get().uri("/actuator/metrics/r2dbc.pool.pending")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void acquiredGaugeFollowsBorrowedConnections(){
+        double before = gauge("r2dbc.pool.acquired");
+
+        Connection connection = Mono.from(connectionFactory.create()).block();
+        try {
+            assertEquals(before + 1, gauge("r2dbc.pool.acquired"));
+        } finally {
+            Mono.from(connection.close()).block();
+        }
+        assertEquals(before, gauge("r2dbc.pool.acquired"));
+        assertEquals(0, gauge("r2dbc.pool.pending"));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
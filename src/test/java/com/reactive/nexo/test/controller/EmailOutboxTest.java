@@ -0,0 +1,170 @@
+package com.reactive.nexo.test.controller;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.reactive.nexo.model.EmailOutbox;
+import com.reactive.nexo.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Password reset emails are queued in email_outbox and delivered in the background: a
+ * request returns before the SMTP exchange, a mail server outage is retried with backoff and
+ * a row is given up after max-attempts.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "email.outbox.enabled=true",
+        "email.outbox.initial-backoff=1s",
+        "email.outbox.max-backoff=1s",
+        "email.outbox.max-attempts=2"
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import(TestData.class)
+// stops the poller once the class is done
+@DirtiesContext
+public class EmailOutboxTest {
+
+    private static final Pattern TOKEN = Pattern.compile("token=([\\w.-]+)");
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+    }
+
+    @Test
+    public void resetEmailsAreDeliveredFromTheOutbox() throws Exception {
+        create("8001", "ana@test.co");
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> greenMail.getReceivedMessages().length == 1);
+        EmailOutbox row = await().atMost(Duration.ofSeconds(10)).until(this::onlyRow, r -> EmailOutbox.SENT.equals(r.getStatus()));
+        assertEquals("ana@test.co", row.getRecipient());
+        assertEquals(1, row.getAttempts());
+        assertNotNull(row.getSentAt());
+        String first = tokenOf(greenMail.getReceivedMessages()[0]);
+        verify(first).expectStatus().isOk();
+
+        // the reset endpoint answers once the row is queued; the email follows
+        webTestClient.get().uri("/api/v1/employees/reset-password/{type}/{number}", "CC", "8001")
+                .exchange()
+                .expectStatus().isOk();
+        await().atMost(Duration.ofSeconds(10)).until(() -> greenMail.getReceivedMessages().length == 2);
+        String second = tokenOf(greenMail.getReceivedMessages()[1]);
+        verify(second).expectStatus().isOk();
+        verify(first).expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void bulkImportQueuesWelcomeEmailsAndResetsUseCorreo() throws Exception {
+        String body = "{\"names\":\"Sol\",\"lastnames\":\"Paz\",\"identification_type\":\"CC\",\"identification_number\":\"8004\","
+                + "\"attributes\":{\"correo\":[\"sol@test.co\"]}}\n"
+                + "{\"names\":\"Sin\",\"lastnames\":\"Correo\",\"identification_type\":\"CC\",\"identification_number\":\"8005\"}\n";
+        webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody()
+                .blockLast();
+
+        EmailOutbox row = await().atMost(Duration.ofSeconds(10)).until(this::onlyRow, r -> EmailOutbox.SENT.equals(r.getStatus()));
+        assertEquals("sol@test.co", row.getRecipient());
+
+        // the reset endpoint finds the same address the welcome email went to
+        webTestClient.get().uri("/api/v1/employees/reset-password/{type}/{number}", "CC", "8004")
+                .exchange()
+                .expectStatus().isOk();
+        await().atMost(Duration.ofSeconds(10)).until(() -> greenMail.getReceivedMessages().length == 2);
+        assertEquals("sol@test.co", greenMail.getReceivedMessages()[1].getAllRecipients()[0].toString());
+    }
+
+    @Test
+    public void failedDeliveriesAreRetriedWithBackoff(){
+        greenMail.stop();
+        create("8002", "luis@test.co");
+
+        EmailOutbox failed = await().atMost(Duration.ofSeconds(10)).until(this::onlyRow, r -> r.getAttempts() == 1 && r.getLastError() != null);
+        assertEquals(EmailOutbox.PENDING, failed.getStatus());
+        assertTrue(failed.getNextAttemptAt().isAfter(failed.getCreatedAt()));
+
+        greenMail.start();
+        EmailOutbox sent = await().atMost(Duration.ofSeconds(10)).until(this::onlyRow, r -> EmailOutbox.SENT.equals(r.getStatus()));
+        assertEquals(2, sent.getAttempts());
+        assertNull(sent.getLastError());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void rowsAreGivenUpAfterMaxAttempts(){
+        greenMail.stop();
+        create("8003", "eva@test.co");
+
+        EmailOutbox row = await().atMost(Duration.ofSeconds(10)).until(this::onlyRow, r -> EmailOutbox.FAILED.equals(r.getStatus()));
+        assertEquals(2, row.getAttempts());
+        assertNotNull(row.getLastError());
+    }
+
+    private void create(String identificationNumber, String email) {
+        String json = "{\"names\":\"Ana\",\"lastnames\":\"Mina\",\"identification_type\":\"CC\",\"identification_number\":\""
+                + identificationNumber + "\",\"attributes\":{\"email\":[\"" + email + "\"]}}";
+        webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(json)
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    private EmailOutbox onlyRow() {
+        return outboxRepository.findAll().single().block();
+    }
+
+    private static String tokenOf(MimeMessage message) throws Exception {
+        Matcher matcher = TOKEN.matcher(message.getContent().toString());
+        assertTrue(matcher.find(), "no token in the email body");
+        return matcher.group(1);
+    }
+
+    private WebTestClient.ResponseSpec verify(String token) {
+        return webTestClient.post().uri("/api/v1/employees/reset-password/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"token\":\"" + token + "\"}")
+                .exchange();
+    }
+}
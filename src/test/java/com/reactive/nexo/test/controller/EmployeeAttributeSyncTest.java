@@ -0,0 +1,111 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * PUT /employees/{id} diffs the requested attributes against the stored ones and only
+ * issues statements for what changed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeAttributeSyncTest {
+
+    private static final String EMPLOYEE = "\"names\":\"Ana\",\"lastnames\":\"Mina\",\"identification_type\":\"CC\",\"identification_number\":\"7101\"";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        employeeId = webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{" + EMPLOYEE + ",\"attributes\":{\"telefono\":[\"315\"],\"alergias\":[\"polen\",\"gluten\"],\"regimen\":[\"contributivo\"]}}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Employee.class)
+                .returnResult().getResponseBody().getId();
+    }
+
+    @Test
+    public void unchangedAttributesCostOnlyTheRead(){
+        assertEquals(1, put("{\"regimen\":[\"contributivo\"],\"telefono\":[\"315\"],\"alergias\":[\"polen\",\"gluten\"]}"));
+    }
+
+    @Test
+    public void onlyChangesAreWritten(){
+        // telefono changes, alergias gains a value, regimen goes away, email is new:
+        // read, delete values, delete attribute, upsert, read new ids, insert values
+        assertEquals(6, put("{\"telefono\":[\"316\"],\"alergias\":[\"polen\",\"gluten\",\"mani\"],\"email\":[\"ana@test.co\"]}"));
+
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes.length()").isEqualTo(3)
+                .jsonPath("$.attributes[?(@.attribute_name == 'telefono')].values[0]").isEqualTo("316")
+                .jsonPath("$.attributes[?(@.attribute_name == 'alergias')].values.length()").isEqualTo(3)
+                .jsonPath("$.attributes[?(@.attribute_name == 'email')].values[0]").isEqualTo("ana@test.co")
+                .jsonPath("$.attributes[?(@.attribute_name == 'regimen')]").isEmpty();
+    }
+
+    @Test
+    public void reorderRewritesValuesAndSingleValueClearsMultiple(){
+        // read, delete values, insert values
+        assertEquals(3, put("{\"telefono\":[\"315\"],\"alergias\":[\"gluten\",\"polen\"],\"regimen\":[\"contributivo\"]}"));
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes[?(@.attribute_name == 'alergias')].values[0]").isEqualTo("gluten");
+
+        // read, delete the dropped value, clear the multiple flag
+        assertEquals(3, put("{\"telefono\":[\"315\"],\"alergias\":[\"gluten\"],\"regimen\":[\"contributivo\"]}"));
+        Boolean multiple = databaseClient.sql("SELECT multiple FROM attribute_employee WHERE employee_id = $1 AND name_attribute = 'alergias'")
+                .bind(0, employeeId)
+                .map((row, md) -> row.get("multiple", Boolean.class))
+                .one().block();
+        assertEquals(Boolean.FALSE, multiple);
+    }
+
+    /**
+     * PUT the attributes and return the number of statements that touched the attribute tables.
+     */
+    private long put(String attributes){
+        statementCounter.reset();
+        webTestClient.put().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{" + EMPLOYEE + ",\"attributes\":" + attributes + "}")
+                .exchange()
+                .expectStatus().isOk();
+        return statementCounter.statements().stream().filter(sql -> sql.contains("attribute_employee")).count();
+    }
+}
@@ -0,0 +1,216 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.dto.BulkImportResult;
+import com.reactive.nexo.service.PasswordHasher;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * POST /bulk writes each chunk (employees.bulk.chunk-size = 10 in the test profile) with a
+ * fixed number of multi-row statements and reports rejected rows without aborting.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeBulkImportTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+        testData.insertEmployee("Existing", "CC", "5003");
+    }
+
+    @Test
+    public void ndjsonImportReportsConflictsAndWritesTheRest(){
+        StringBuilder body = new StringBuilder();
+        for(int i = 1; i <= 20; i++){
+            body.append("{\"names\":\"Bulk ").append(i).append("\",\"lastnames\":\"Test\",\"identification_type\":\"CC\",")
+                .append("\"identification_number\":\"50").append(String.format("%02d", i)).append("\",\"password\":\"pw").append(i).append("\",")
+                .append("\"attributes\":{\"email\":[\"b").append(i).append("@test.co\"],\"alergias\":[\"polen\",\"gluten\"]}}\n");
+        }
+        // repeated in the request, missing lastnames
+        body.append("{\"names\":\"Again\",\"lastnames\":\"Test\",\"identification_type\":\"CC\",\"identification_number\":\"5001\"}\n");
+        body.append("{\"names\":\"Broken\",\"identification_type\":\"CC\",\"identification_number\":\"5099\"}\n");
+
+        statementCounter.reset();
+        List<BulkImportResult> results = webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkImportResult.class)
+                .getResponseBody()
+                .collectList().block();
+
+        assertNotNull(results);
+        BulkImportResult summary = results.get(results.size() - 1);
+        assertEquals(BulkImportResult.SUMMARY, summary.getStatus());
+        assertEquals(19, summary.getCreated());
+        assertEquals(2, summary.getConflicts());
+        assertEquals(1, summary.getInvalid());
+        List<Integer> rejectedRows = results.stream().filter(r -> r.getRow() != null).map(BulkImportResult::getRow).collect(Collectors.toList());
+        assertEquals(List.of(3, 21, 22), rejectedRows);
+        // per chunk: pre-check, employees, ids, attributes, attribute ids, values, welcome emails; the third chunk only holds rejected rows
+        assertEquals(14, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        assertEquals(20L, count("SELECT COUNT(*) FROM employees"));
+        assertEquals(38L, count("SELECT COUNT(*) FROM attribute_employee"));
+        assertEquals(57L, count("SELECT COUNT(*) FROM value_attribute_employee"));
+        assertEquals(19L, count("SELECT COUNT(*) FROM email_outbox WHERE kind = 'PASSWORD_RESET'"));
+        String hash = databaseClient.sql("SELECT password FROM employees WHERE identification_number = '5001'")
+                .map((row, md) -> row.get("password", String.class)).one().block();
+        assertTrue(PasswordHasher.isBCrypt(hash));
+
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "5001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes[?(@.attribute_name == 'alergias')].values.length()").isEqualTo(2);
+    }
+
+    @Test
+    public void unknownRolIsInvalidNotAConflict(){
+        String body = "{\"names\":\"Ok\",\"lastnames\":\"Test\",\"identification_type\":\"CC\",\"identification_number\":\"5101\"}\n"
+                + "{\"names\":\"Bad\",\"lastnames\":\"Rol\",\"identification_type\":\"CC\",\"identification_number\":\"5102\",\"rol_id\":-1}\n";
+
+        List<BulkImportResult> results = webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkImportResult.class)
+                .getResponseBody()
+                .collectList().block();
+
+        assertNotNull(results);
+        BulkImportResult rejected = results.get(0);
+        assertEquals(2, rejected.getRow());
+        assertEquals(BulkImportResult.INVALID, rejected.getStatus());
+        BulkImportResult summary = results.get(results.size() - 1);
+        assertEquals(1, summary.getCreated());
+        assertEquals(0, summary.getConflicts());
+        assertEquals(1, summary.getInvalid());
+        assertEquals(2L, count("SELECT COUNT(*) FROM employees"));
+    }
+
+    @Test
+    public void rowFixedAfterAnInvalidOneIsNotARepeat(){
+        String body = "{\"names\":\"Bad\",\"lastnames\":\"Rol\",\"identification_type\":\"CC\",\"identification_number\":\"5301\",\"rol_id\":-1}\n"
+                + "{\"names\":\"Fixed\",\"lastnames\":\"Rol\",\"identification_type\":\"CC\",\"identification_number\":\"5301\"}\n"
+                + "{\"names\":\"Again\",\"lastnames\":\"Rol\",\"identification_type\":\"CC\",\"identification_number\":\"5301\"}\n";
+
+        List<BulkImportResult> results = webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkImportResult.class)
+                .getResponseBody()
+                .collectList().block();
+
+        assertNotNull(results);
+        List<String> rejected = results.stream().filter(r -> r.getRow() != null)
+                .map(r -> r.getRow() + ":" + r.getStatus()).collect(Collectors.toList());
+        assertEquals(List.of("1:" + BulkImportResult.INVALID, "3:" + BulkImportResult.CONFLICT), rejected);
+        BulkImportResult summary = results.get(results.size() - 1);
+        assertEquals(1, summary.getCreated());
+        assertEquals("Fixed", databaseClient.sql("SELECT names FROM employees WHERE identification_number = '5301'")
+                .map((row, md) -> row.get("names", String.class)).one().block());
+    }
+
+    @Test
+    public void attributeWithoutValuesIsStoredAsOnCreate(){
+        String body = "{\"names\":\"Sin\",\"lastnames\":\"Valores\",\"identification_type\":\"CC\",\"identification_number\":\"5201\","
+                + "\"attributes\":{\"alergias\":[],\"email\":[\"sin@test.co\"]}}\n";
+
+        webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkImportResult.class)
+                .getResponseBody()
+                .blockLast();
+
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "5201")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes.length()").isEqualTo(2)
+                .jsonPath("$.attributes[?(@.attribute_name == 'alergias')].values.length()").isEqualTo(0);
+    }
+
+    @Test
+    public void csvImportMapsExtraColumnsToAttributes(){
+        String csv = "names,lastnames,identification_type,identification_number,rol_id,email,alergias\n"
+                + "Ana,\"Mina, Rios\",CC,6001,,ana@test.co,polen|gluten\n"
+                + "Luis,Paz,CC,6002,abc,luis@test.co,\n"
+                + "Eva,Paz,CC,6003,,,\n";
+
+        webTestClient.post().uri("/api/v1/employees/bulk")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(csv)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BulkImportResult.class)
+                .getResponseBody()
+                .filter(r -> BulkImportResult.SUMMARY.equals(r.getStatus()))
+                .doOnNext(summary -> {
+                    assertEquals(2, summary.getCreated());
+                    assertEquals(1, summary.getInvalid());
+                })
+                .blockLast();
+
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "6001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.lastnames").isEqualTo("Mina, Rios")
+                .jsonPath("$.attributes.length()").isEqualTo(2)
+                .jsonPath("$.attributes[?(@.attribute_name == 'alergias')].values.length()").isEqualTo(2);
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "6003")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes.length()").isEqualTo(0);
+    }
+
+    private Long count(String sql){
+        return databaseClient.sql(sql).map((row, md) -> row.get(0, Long.class)).one().block();
+    }
+}
@@ -0,0 +1,107 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.dto.PagedResponse;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * GET /by-attribute finds employees by attribute value (exact or prefix) in one statement
+ * per page, continuing with the keyset cursor.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeByAttributeTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        // 12 employees: even ones in sura, odd ones in sanitas; one with a literal "%" in the value
+        for(int i = 1; i <= 12; i++){
+            Integer employeeId = testData.insertEmployee("Employee " + i, "CC", "7" + i);
+            testData.addAttribute(employeeId, "entidad de salud", false, i % 2 == 0 ? "sura" : "sanitas");
+            testData.addAttribute(employeeId, "email", false, i == 12 ? "100%@test.co" : "user" + i + "@test.co");
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    public void exactMatchPagesWithCursor(){
+        List<Object> ids = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while(cursor != null){
+            statementCounter.reset();
+            PagedResponse<?> page = webTestClient.get()
+                    .uri("/api/v1/employees/by-attribute?name={name}&value=sura&size=4&after={after}", "entidad de salud", cursor)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(PagedResponse.class)
+                    .returnResult().getResponseBody();
+            assertNotNull(page);
+            page.getContent().forEach(e -> ids.add(((Map<?, ?>) e).get("id")));
+            assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+            cursor = page.getNextCursor();
+            pages++;
+        }
+        assertEquals(6, ids.size());
+        assertEquals(2, pages);
+    }
+
+    @Test
+    public void prefixMatchTreatsWildcardsLiterally(){
+        webTestClient.get().uri("/api/v1/employees/by-attribute?name=entidad de salud&value=sa&match=prefix&attributes=email")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(6)
+                .jsonPath("$.content[0].attributes[0].values[0]").isEqualTo("user1@test.co")
+                .jsonPath("$.content[0].password").isEqualTo("***")
+                .jsonPath("$.isLast").isEqualTo(true)
+                .jsonPath("$.totalElements").doesNotExist();
+
+        webTestClient.get().uri("/api/v1/employees/by-attribute?name=email&value={value}&match=prefix", "100%")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].names").isEqualTo("Employee 12");
+
+        webTestClient.get().uri("/api/v1/employees/by-attribute?name=email&value={value}&match=prefix", "user_")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(0);
+
+        webTestClient.get().uri("/api/v1/employees/by-attribute?name=email&value=x&match=fuzzy")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.model.Employee;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Read-through employee cache: repeated reads are served without statements and every
+ * write through the API invalidates the entry.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeCacheTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        String json = "{\"names\":\"Ana\",\"lastnames\":\"Mina\",\"identification_type\":\"CC\",\"identification_number\":\"7001\","
+                + "\"attributes\":{\"telefono\":[\"315-000-0000\"]}}";
+        employeeId = webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(json)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Employee.class)
+                .returnResult().getResponseBody().getId();
+    }
+
+    @Test
+    public void repeatedReadsAreServedFromCache(){
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId).exchange().expectStatus().isOk();
+
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.password").isEqualTo("***")
+                .jsonPath("$.attributes[0].values[0]").isEqualTo("315-000-0000");
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "7001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(employeeId);
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "7001")
+                .exchange()
+                .expectStatus().isOk();
+
+        // loading by id also indexes the identification pair, so none of these reach the database
+        assertEquals(0, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void writesInvalidateCachedEmployee(){
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId).exchange().expectStatus().isOk();
+
+        webTestClient.patch().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Ana Maria\"}")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.names").isEqualTo("Ana Maria");
+
+        String json = "{\"names\":\"Ana Maria\",\"lastnames\":\"Mina\",\"identification_type\":\"CC\",\"identification_number\":\"7001\","
+                + "\"attributes\":{\"telefono\":[\"316-111-1111\"]}}";
+        webTestClient.put().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(json)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "7001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.attributes[0].values[0]").isEqualTo("316-111-1111");
+
+        webTestClient.delete().uri("/api/v1/employees/{id}", employeeId).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId).exchange().expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,120 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Deleting employees removes their attribute and value rows through the cascading foreign
+ * keys, one statement per employee or per chunk of ids (employees.delete.chunk-size is 10
+ * in the test profile).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeDeleteTest {
+
+    private static final int EMPLOYEES = 25;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private final List<Integer> employeeIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+        employeeIds.clear();
+
+        for(int i = 1; i <= EMPLOYEES; i++){
+            Integer employeeId = testData.insertEmployee("Employee " + i, "CC", "4" + i);
+            testData.addAttribute(employeeId, "alergias", true, "polen", "mani");
+            employeeIds.add(employeeId);
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    public void deleteRemovesAttributesAndValues(){
+        webTestClient.delete().uri("/api/v1/employees/{id}", employeeIds.get(0))
+                .exchange()
+                .expectStatus().isOk();
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        assertEquals(EMPLOYEES - 1, count("attribute_employee"));
+        assertEquals(2 * (EMPLOYEES - 1), count("value_attribute_employee"));
+
+        webTestClient.delete().uri("/api/v1/employees/{id}", employeeIds.get(0))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void bulkDeleteRunsOneStatementPerChunk(){
+        List<Integer> ids = new ArrayList<>(employeeIds.subList(0, 20));
+        ids.add(employeeIds.get(0));
+        ids.add(-1);
+
+        webTestClient.method(HttpMethod.DELETE).uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ids)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.requested").isEqualTo(21)
+                .jsonPath("$.deleted").isEqualTo(20);
+        assertEquals(3, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        assertEquals(EMPLOYEES - 20, count("employees"));
+        assertEquals(EMPLOYEES - 20, count("attribute_employee"));
+        assertEquals(2 * (EMPLOYEES - 20), count("value_attribute_employee"));
+
+        // the cached count follows the delete
+        webTestClient.get().uri("/api/v1/employees?size=5&count=cached")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.totalElements").isEqualTo(EMPLOYEES - 20);
+    }
+
+    @Test
+    public void bulkDeleteWithoutIdsIsABadRequest(){
+        webTestClient.method(HttpMethod.DELETE).uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("null")
+                .exchange()
+                .expectStatus().isBadRequest();
+        assertEquals(0, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+        assertEquals(EMPLOYEES, count("employees"));
+    }
+
+    private long count(String table){
+        return databaseClient.sql("SELECT count(*) AS n FROM " + table)
+                .map((row, md) -> row.get("n", Long.class))
+                .one().block();
+    }
+}
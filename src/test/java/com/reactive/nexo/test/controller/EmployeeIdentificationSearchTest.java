@@ -0,0 +1,109 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * POST /api/v1/employees/search/identification answers one result per requested pair, in
+ * request order, with one pair lookup and one attribute query per chunk of pairs
+ * (employees.search.chunk-size is 10 in the test profile).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeIdentificationSearchTest {
+
+    private static final int EMPLOYEES = 15;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        for(int i = 1; i <= EMPLOYEES; i++){
+            Integer employeeId = testData.insert("INSERT INTO employees (names, lastnames, identification_type, identification_number, password) VALUES ($1, 'Test', $2, $3, 'hash')",
+                    "Employee " + i, i % 2 == 0 ? "CC" : "TI", "5" + i);
+            testData.addAttribute(employeeId, "alergias", true, "polen");
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    public void resultsFollowTheRequestOrderAndMarkMissingPairs(){
+        List<Map<String, String>> pairs = List.of(
+                pair("CC", "54"),
+                pair("CC", "53"),
+                pair("ti", "53"),
+                pair("CC", "54"));
+
+        webTestClient.post().uri("/api/v1/employees/search/identification")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("$[0].found").isEqualTo(true)
+                .jsonPath("$[0].employee.names").isEqualTo("Employee 4")
+                .jsonPath("$[0].employee.password").isEqualTo("***")
+                .jsonPath("$[0].employee.attributes[0].values[0]").isEqualTo("polen")
+                // no CC 53: TI 53 is a different employee
+                .jsonPath("$[1].found").isEqualTo(false)
+                .jsonPath("$[1].identification_number").isEqualTo("53")
+                .jsonPath("$[1].employee").doesNotExist()
+                .jsonPath("$[2].found").isEqualTo(true)
+                .jsonPath("$[2].identification_type").isEqualTo("TI")
+                .jsonPath("$[2].employee.names").isEqualTo("Employee 3")
+                .jsonPath("$[3].employee.names").isEqualTo("Employee 4");
+        assertEquals(2, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void pairsAreLookedUpPerChunk(){
+        List<Map<String, String>> pairs = new ArrayList<>();
+        for(int i = EMPLOYEES; i >= 1; i--){
+            pairs.add(pair(i % 2 == 0 ? "CC" : "TI", "5" + i));
+        }
+
+        webTestClient.post().uri("/api/v1/employees/search/identification?attributes=ninguno")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(pairs)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(EMPLOYEES)
+                .jsonPath("$[0].employee.names").isEqualTo("Employee " + EMPLOYEES)
+                .jsonPath("$[14].employee.names").isEqualTo("Employee 1")
+                .jsonPath("$[14].employee.attributes.length()").isEqualTo(0);
+        // two chunks of pairs, each with its attribute query
+        assertEquals(4, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    private static Map<String, String> pair(String type, String number){
+        return Map.of("identification_type", type, "identification_number", number);
+    }
+}
@@ -0,0 +1,199 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.dto.PagedResponse;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Guards the number of statements the paginated employee list costs: one count, one page
+ * query and one batched attribute/value query, whatever the page size or attribute count.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeePaginationQueryCountTest {
+
+    private static final int EMPLOYEES = 25;
+    private static final String[] ATTRIBUTES = {"email", "telefono", "entidad de salud", "regimen", "alergias"};
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        for(int i = 1; i <= EMPLOYEES; i++){
+            Integer employeeId = testData.insertEmployee("Employee " + i, "CC", "9" + i);
+            for(String attribute : ATTRIBUTES){
+                boolean multiple = "alergias".equals(attribute);
+                String[] values = multiple
+                        ? new String[]{attribute + "-" + i + "-0", attribute + "-" + i + "-1"}
+                        : new String[]{attribute + "-" + i + "-0"};
+                testData.addAttribute(employeeId, attribute, multiple, values);
+            }
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    public void pageWithAttributesCostsThreeStatements(){
+        webTestClient.get().uri("/api/v1/employees?page=0&size={size}&attributes=email,alergias,telefono", EMPLOYEES)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(EMPLOYEES)
+                .jsonPath("$.totalElements").isEqualTo(EMPLOYEES)
+                .jsonPath("$.content[0].password").isEqualTo("***")
+                .jsonPath("$.content[0].attributes.length()").isEqualTo(3)
+                .jsonPath("$.content[0].attributes[?(@.attribute_name == 'alergias')].values.length()").isEqualTo(2)
+                .jsonPath("$.content[0].attributes[?(@.attribute_name == 'email')].values[0]").isEqualTo("email-1-0");
+
+        assertEquals(3, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void pageWithoutAttributesSkipsAttributeQuery(){
+        webTestClient.get().uri("/api/v1/employees?page=1&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(10)
+                .jsonPath("$.content[0].attributes.length()").isEqualTo(0);
+
+        assertEquals(2, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void cursorPagesWalkWholeDirectory(){
+        Set<Integer> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        while(cursor != null){
+            statementCounter.reset();
+            PagedResponse<?> page = webTestClient.get().uri("/api/v1/employees?size=10&attributes=email&after={after}", cursor)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(PagedResponse.class)
+                    .returnResult().getResponseBody();
+            assertNotNull(page);
+            page.getContent().forEach(e -> seen.add((Integer) ((Map<?, ?>) e).get("id")));
+            assertEquals(3, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+            cursor = page.getNextCursor();
+            pages++;
+        }
+        assertEquals(EMPLOYEES, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void windowedCountComesWithThePageQuery(){
+        webTestClient.get().uri("/api/v1/employees?page=2&size=10&attributes=email&count=windowed")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(5)
+                .jsonPath("$.totalElements").isEqualTo(EMPLOYEES)
+                .jsonPath("$.totalPages").isEqualTo(3)
+                .jsonPath("$.isLast").isEqualTo(true);
+
+        assertEquals(2, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void omittedCountSkipsCountQuery(){
+        webTestClient.get().uri("/api/v1/employees?page=0&size=10&count=none")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(10)
+                .jsonPath("$.totalElements").doesNotExist()
+                .jsonPath("$.isLast").isEqualTo(false)
+                .jsonPath("$.nextCursor").isNotEmpty();
+
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void cachedCountIsReusedUntilAWrite(){
+        webTestClient.get().uri("/api/v1/employees?size=5&count=cached").exchange().expectStatus().isOk();
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees?size=5&count=cached")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(EMPLOYEES);
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        webTestClient.delete().uri("/api/v1/employees/{id}", firstEmployeeId()).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/employees?size=5&count=cached")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(EMPLOYEES - 1);
+    }
+
+    @Test
+    public void estimatedCountReadsStatistics(){
+        webTestClient.get().uri("/api/v1/employees?page=0&size=10&count=estimated")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isNumber()
+                .jsonPath("$.isLast").isEqualTo(false);
+
+        assertEquals(2, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void exportStreamsDirectoryFromOneStatement(){
+        List<Map> lines = webTestClient.get().uri("/api/v1/employees/export?attributes=email,alergias")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Map.class)
+                .getResponseBody()
+                .collectList().block();
+
+        assertNotNull(lines);
+        assertEquals(EMPLOYEES, lines.size());
+        assertEquals(2, ((List<?>) lines.get(0).get("attributes")).size());
+        assertEquals("***", lines.get(0).get("password"));
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    private Integer firstEmployeeId(){
+        return databaseClient.sql("SELECT MIN(id) AS id FROM employees")
+                .map((row, md) -> row.get("id", Integer.class))
+                .one().block();
+    }
+}
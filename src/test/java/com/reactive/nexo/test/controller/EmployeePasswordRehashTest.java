@@ -0,0 +1,82 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.service.PasswordHasher;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A login with a hash stored at another BCrypt cost replaces it, after the response, with a
+ * hash at the configured cost (4 in the test profile).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import(TestData.class)
+public class EmployeePasswordRehashTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        employeeId = testData.insert("INSERT INTO employees (names, lastnames, identification_type, identification_number, password) VALUES ('Luz', 'Rio', 'CC', '8001', $1)",
+                new BCryptPasswordEncoder(5).encode("clave"));
+    }
+
+    @Test
+    public void loginUpgradesHashToConfiguredStrength() throws InterruptedException {
+        authenticate("clave").expectStatus().isOk();
+
+        String stored = storedHash();
+        for(int i = 0; i < 50 && PasswordHasher.costOf(stored) != 4; i++){
+            Thread.sleep(100);
+            stored = storedHash();
+        }
+        assertEquals(passwordHasher.getStrength(), PasswordHasher.costOf(stored));
+        assertTrue(new BCryptPasswordEncoder().matches("clave", stored));
+
+        // the rehashed password keeps working, and a wrong one is still rejected
+        authenticate("clave").expectStatus().isOk();
+        authenticate("otra").expectStatus().isUnauthorized();
+    }
+
+    private WebTestClient.ResponseSpec authenticate(String password){
+        return webTestClient.post().uri("/api/v1/employees/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"identification_type\":\"CC\",\"identification_number\":\"8001\",\"password\":\"" + password + "\"}")
+                .exchange();
+    }
+
+    private String storedHash(){
+        return databaseClient.sql("SELECT password FROM employees WHERE id = $1")
+                .bind(0, employeeId)
+                .map((row, md) -> row.get("password", String.class))
+                .one().block();
+    }
+}
@@ -0,0 +1,81 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.service.PasswordResetTokens;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * POST /api/v1/employees/reset-password/verify accepts only the latest, unused reset token
+ * of an employee and answers without touching the database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+public class EmployeeResetTokenTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PasswordResetTokens passwordResetTokens;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    public void verifyReturnsClaimsUntilTheTokenIsReplacedOrUsed(){
+        String first = passwordResetTokens.issue("ana@test.co", 41);
+
+        statementCounter.reset();
+        verify(first)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.employee_id").isEqualTo(41)
+                .jsonPath("$.employee_email").isEqualTo("ana@test.co")
+                .jsonPath("$.token_id").isNotEmpty()
+                .jsonPath("$.expires_at").isNotEmpty();
+        assertEquals(0, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        // a new link revokes the previous one
+        String second = passwordResetTokens.issue("ana@test.co", 41);
+        verify(first).expectStatus().isUnauthorized();
+        verify(second).expectStatus().isOk();
+
+        assertTrue(passwordResetTokens.revoke(second));
+        assertFalse(passwordResetTokens.revoke(second));
+        verify(second).expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void verifyRejectsForeignAndMalformedTokens(){
+        String otherSecret = new JwtUtil("another-secret-key-with-enough-bytes-for-hs256-000", 3_600_000L)
+                .generatePasswordResetToken("ana@test.co", "41");
+        verify(otherSecret).expectStatus().isUnauthorized();
+        verify("not-a-token").expectStatus().isUnauthorized();
+        verify("").expectStatus().isUnauthorized();
+
+        String expired = new JwtUtil("test-secret-key-for-testing-purposes-only-12345678", -1000L)
+                .generatePasswordResetToken("ana@test.co", "41");
+        verify(expired).expectStatus().isUnauthorized();
+    }
+
+    private WebTestClient.ResponseSpec verify(String token) {
+        return webTestClient.post().uri("/api/v1/employees/reset-password/verify")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"token\":\"" + token + "\"}")
+                .exchange();
+    }
+}
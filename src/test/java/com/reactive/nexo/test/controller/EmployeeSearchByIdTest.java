@@ -0,0 +1,102 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * POST /search/id looks ids up in chunks of employees.search.chunk-size (10 in the test
+ * profile) and answers in request order.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeSearchByIdTest {
+
+    private static final int EMPLOYEES = 25;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private final List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        ids.clear();
+        for(int i = 1; i <= EMPLOYEES; i++){
+            Integer employeeId = testData.insertEmployee("Employee " + i, "CC", "8" + i);
+            testData.addAttribute(employeeId, "email", false, "e" + i + "@test.co");
+            ids.add(employeeId);
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    public void answersInRequestOrderWithOneStatementPerChunk(){
+        List<Integer> requested = new ArrayList<>(ids);
+        Collections.shuffle(requested);
+        List<Integer> body = new ArrayList<>(requested);
+        body.add(5, -1);                 // unknown id is skipped
+        body.add(requested.get(0));      // duplicate is returned once
+
+        List<Map> found = webTestClient.post().uri("/api/v1/employees/search/id")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Map.class)
+                .returnResult().getResponseBody();
+
+        assertNotNull(found);
+        assertEquals(requested, found.stream().map(e -> (Integer) e.get("id")).collect(Collectors.toList()));
+        // 26 distinct ids in chunks of 10
+        assertEquals(3, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void includesAttributesPerChunk(){
+        List<Integer> requested = new ArrayList<>(ids);
+        Collections.reverse(requested);
+
+        List<Map> found = webTestClient.post().uri("/api/v1/employees/search/id?includeAttributes=true&attributes=email")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requested)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Map.class)
+                .returnResult().getResponseBody();
+
+        assertNotNull(found);
+        assertEquals(requested, found.stream().map(e -> (Integer) e.get("id")).collect(Collectors.toList()));
+        assertEquals("e25@test.co", ((List<?>) ((Map<?, ?>) ((List<?>) found.get(0).get("attributes")).get(0)).get("values")).get(0));
+        assertEquals("***", found.get(0).get("password"));
+        // one employee query and one attribute query per chunk
+        assertEquals(6, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+}
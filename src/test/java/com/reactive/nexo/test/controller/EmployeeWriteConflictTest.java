@@ -0,0 +1,112 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.service.EmployeeCache;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Employee writes are single statements: a duplicate identification is detected by the
+ * unique constraint and answered with 409, without a lookup before the write.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EmployeeWriteConflictTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    private Integer firstId;
+    private Integer secondId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+        employeeCache.invalidateAll();
+        firstId = insert("6001");
+        secondId = insert("6002");
+        statementCounter.reset();
+    }
+
+    @Test
+    public void createWithTakenIdentificationIsAConflict(){
+        webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Otro\",\"lastnames\":\"Mas\",\"identification_type\":\"CC\",\"identification_number\":\"6001\"}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void putAndPatchToTakenIdentificationAreConflicts(){
+        webTestClient.put().uri("/api/v1/employees/{id}", secondId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Dos\",\"lastnames\":\"Test\",\"identification_type\":\"CC\",\"identification_number\":\"6001\"}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.patch().uri("/api/v1/employees/{id}", secondId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"identification_number\":\"6001\"}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        webTestClient.get().uri("/api/v1/employees/{id}", secondId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.identification_number").isEqualTo("6002")
+                .jsonPath("$.version").isEqualTo(0);
+    }
+
+    @Test
+    public void patchKeepsOmittedFieldsInOneStatement(){
+        webTestClient.patch().uri("/api/v1/employees/{id}", firstId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastnames\":\"Nuevo\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + firstId + "-1\"")
+                .expectBody()
+                .jsonPath("$.names").isEqualTo("Empleado 6001")
+                .jsonPath("$.lastnames").isEqualTo("Nuevo")
+                .jsonPath("$.identification_number").isEqualTo("6001");
+        assertEquals(1, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+    }
+
+    @Test
+    public void missingEmployeeIsNotFoundEvenWithIfMatch(){
+        webTestClient.patch().uri("/api/v1/employees/{id}", secondId + 1000)
+                .header(HttpHeaders.IF_MATCH, "\"" + (secondId + 1000) + "-0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastnames\":\"Nadie\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private Integer insert(String identificationNumber){
+        return testData.insertEmployee("Empleado " + identificationNumber, "CC", identificationNumber);
+    }
+}
@@ -0,0 +1,327 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.service.EmployeeCache;
+import com.reactive.nexo.service.EmployeeCountService;
+import com.reactive.nexo.service.RolService;
+import com.reactive.nexo.test.support.QueryBudget;
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+/**
+ * Statements each endpoint costs, checked against src/test/resources/query-budget.properties
+ * so a change that adds database round trips to an endpoint fails the build. Every scenario
+ * starts from the same data with the employee cache, the count cache and the permission
+ * table reset, and counts only the statements of the request under test.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+public class EndpointQueryBudgetTest {
+
+    private static final int EMPLOYEES = 12;
+
+    @RegisterExtension
+    static final QueryBudget budget = new QueryBudget();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeCountService employeeCountService;
+
+    @Autowired
+    private RolService rolService;
+
+    private Integer rolId;
+    private Integer emptyRolId;
+    private Integer permissionId;
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+        testData.execute("DELETE FROM permission");
+        testData.execute("DELETE FROM rol");
+
+        rolId = testData.insert("INSERT INTO rol (name) VALUES ('ADMIN')");
+        emptyRolId = testData.insert("INSERT INTO rol (name) VALUES ('INVITADO')");
+        permissionId = testData.insert("INSERT INTO permission (rol_id, method, endpoint) VALUES ($1, 'GET', '/api/v1/employees')", rolId);
+
+        String password = new BCryptPasswordEncoder(4).encode("clave");
+        for(int i = 1; i <= EMPLOYEES; i++){
+            Integer id = testData.insert("INSERT INTO employees (names, lastnames, identification_type, identification_number, password, rol_id) VALUES ($1, 'Test', 'CC', $2, $3, $4)",
+                    "Employee " + i, "8" + i, password, rolId);
+            if(i == 1){
+                employeeId = id;
+            }
+            testData.addAttribute(id, "email", false, "employee" + i + "@nexo.test");
+            testData.addAttribute(id, "telefono", false, "300" + i);
+            testData.addAttribute(id, "alergias", true, "polen", "mani");
+        }
+
+        employeeCache.invalidateAll();
+        employeeCountService.invalidate();
+        rolService.reloadPermissions().block();
+        statementCounter.reset();
+    }
+
+    @Test
+    public void listWithAttributes(){
+        webTestClient.get().uri("/api/v1/employees?page=0&size=10&attributes=email,alergias")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content.length()").isEqualTo(10);
+        budget.check("employees.list.attributes", statementCounter);
+    }
+
+    @Test
+    public void listWithoutAttributes(){
+        webTestClient.get().uri("/api/v1/employees?page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content.length()").isEqualTo(10);
+        budget.check("employees.list.without-attributes", statementCounter);
+    }
+
+    @Test
+    public void listByCursor(){
+        webTestClient.get().uri("/api/v1/employees?size=5&attributes=email&after=")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content.length()").isEqualTo(5);
+        budget.check("employees.list.cursor", statementCounter);
+    }
+
+    @Test
+    public void getById(){
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.attributes.length()").isEqualTo(3);
+        budget.check("employees.get-by-id", statementCounter);
+
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId).exchange().expectStatus().isOk();
+        budget.check("employees.get-by-id.cached", statementCounter);
+    }
+
+    @Test
+    public void getByIdNotModified(){
+        String etag = webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        budget.check("employees.get-by-id.not-modified.cached", statementCounter);
+
+        employeeCache.invalidateAll();
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        budget.check("employees.get-by-id.not-modified", statementCounter);
+    }
+
+    @Test
+    public void getByIdentification(){
+        webTestClient.get().uri("/api/v1/employees/by-identification/{type}/{number}", "CC", "81")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(employeeId);
+        budget.check("employees.get-by-identification", statementCounter);
+    }
+
+    @Test
+    public void searchByIdsWithAttributes(){
+        webTestClient.post().uri("/api/v1/employees/search/id?includeAttributes=true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new int[]{employeeId, employeeId + 1, employeeId + 2})
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(3);
+        budget.check("employees.search-by-ids.attributes", statementCounter);
+    }
+
+    @Test
+    public void searchByIdentifications(){
+        webTestClient.post().uri("/api/v1/employees/search/identification")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"identification_type\":\"CC\",\"identification_number\":\"83\"},"
+                        + "{\"identification_type\":\"CC\",\"identification_number\":\"81\"},"
+                        + "{\"identification_type\":\"CC\",\"identification_number\":\"0\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(3);
+        budget.check("employees.search-by-identifications.attributes", statementCounter);
+    }
+
+    @Test
+    public void createWithAttributes(){
+        webTestClient.post().uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Nueva\",\"lastnames\":\"Persona\",\"identification_type\":\"CC\",\"identification_number\":\"7001\","
+                        + "\"attributes\":{\"email\":[\"nueva@nexo.test\"],\"telefono\":[\"3007001\"],\"alergias\":[\"polen\",\"mani\"]}}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.id").isNotEmpty();
+        budget.check("employees.create.with-attributes", statementCounter);
+    }
+
+    @Test
+    public void putReplacingAttributes(){
+        webTestClient.put().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"names\":\"Employee 1\",\"lastnames\":\"Cambiado\",\"identification_type\":\"CC\",\"identification_number\":\"81\","
+                        + "\"attributes\":{\"email\":[\"cambiado@nexo.test\"],\"alergias\":[\"lactosa\"],\"regimen\":[\"contributivo\"]}}")
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("employees.put.replace-attributes", statementCounter);
+    }
+
+    @Test
+    public void patch(){
+        webTestClient.patch().uri("/api/v1/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"lastnames\":\"Parcial\",\"attributes\":{\"telefono\":[\"3110000\"]}}")
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("employees.patch", statementCounter);
+    }
+
+    @Test
+    public void delete(){
+        webTestClient.delete().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("employees.delete", statementCounter);
+    }
+
+    @Test
+    public void bulkDelete(){
+        List<Integer> ids = databaseClient.sql("SELECT id FROM employees").map((row, md) -> row.get("id", Integer.class)).all().collectList().block();
+        statementCounter.reset();
+        webTestClient.method(HttpMethod.DELETE).uri("/api/v1/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ids)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.deleted").isEqualTo(EMPLOYEES);
+        budget.check("employees.delete.bulk", statementCounter);
+    }
+
+    @Test
+    public void authenticate(){
+        webTestClient.post().uri("/api/v1/employees/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"identification_type\":\"CC\",\"identification_number\":\"81\",\"password\":\"clave\"}")
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("employees.authenticate", statementCounter);
+
+        statementCounter.reset();
+        webTestClient.post().uri("/api/v1/employees/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"identification_type\":\"CC\",\"identification_number\":\"81\",\"password\":\"otra\"}")
+                .exchange()
+                .expectStatus().isUnauthorized();
+        budget.check("employees.authenticate.wrong-password", statementCounter);
+    }
+
+    @Test
+    public void listRols(){
+        webTestClient.get().uri("/api/v1/rols")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(2);
+        budget.check("rols.list", statementCounter);
+    }
+
+    @Test
+    public void getRolWithPermissions(){
+        webTestClient.get().uri("/api/v1/rols/{id}", rolId)
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("rols.get", statementCounter);
+    }
+
+    @Test
+    public void createRol(){
+        webTestClient.post().uri("/api/v1/rols")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"AUDITOR\"}")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        budget.check("rols.create", statementCounter);
+    }
+
+    @Test
+    public void updateRol(){
+        webTestClient.put().uri("/api/v1/rols/{id}", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"ADMINISTRADOR\"}")
+                .exchange()
+                .expectStatus().isOk();
+        budget.check("rols.update", statementCounter);
+    }
+
+    @Test
+    public void deleteRol(){
+        webTestClient.delete().uri("/api/v1/rols/{id}", emptyRolId)
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        budget.check("rols.delete", statementCounter);
+    }
+
+    @Test
+    public void createPermission(){
+        webTestClient.post().uri("/api/v1/rols/{id}/permission", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"method\":\"POST\",\"endpoint\":\"/api/v1/employees\"}")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        budget.check("rols.permission.create", statementCounter);
+    }
+
+    @Test
+    public void deletePermission(){
+        webTestClient.delete().uri("/api/v1/rols/{id}/permission/{permissionId}", rolId, permissionId)
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        budget.check("rols.permission.delete", statementCounter);
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactive.nexo.test.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Endpoint, repository, BCrypt and scheduler meters are recorded with their tags and
+ * published on the Prometheus scrape endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+// tests otherwise get a plain in-memory registry and no scrape endpoint
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+public class MetricsEndpointTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void requestsAreTaggedByAttributesFilterAndRepositoriesAreTimed(){
+        webTestClient.get().uri("/api/v1/employees?attributes=telefono").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/employees").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/rols").exchange().expectStatus().isOk();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> count(meterRegistry.find("http.server.requests")
+                .tag("uri", "/api/v1/employees").tag("attributes", "filtered")) >= 1
+                && count(meterRegistry.find("http.server.requests")
+                .tag("uri", "/api/v1/employees").tag("attributes", "unfiltered")) >= 1);
+        assertTrue(count(meterRegistry.find("repository.invocations")
+                .tag("repository", "RolRepository").tag("method", "findAll").tag("outcome", "success")) >= 1);
+        assertNotNull(meterRegistry.find("executor.idle").tag("name", "bcrypt").timer());
+
+        String scrape = webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertTrue(scrape.contains("repository_invocations_seconds_count{"), "repository timer not published");
+        assertTrue(scrape.contains("attributes=\"filtered\""), "attributes tag not published");
+        assertTrue(scrape.contains("email_outbox_scheduler_"), "scheduler meters not published");
+    }
+
+    private static long count(Search search) {
+        return search.timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+}
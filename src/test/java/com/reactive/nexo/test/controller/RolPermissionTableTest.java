@@ -0,0 +1,88 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.model.Rol;
+import com.reactive.nexo.test.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Role permissions are served from the in-memory table, which follows every role and
+ * permission change made through the API.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+public class RolPermissionTableTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Integer rolId;
+
+    @BeforeEach
+    public void setup(){
+        databaseClient.sql("UPDATE employees SET rol_id = NULL").fetch().rowsUpdated().block();
+        databaseClient.sql("DELETE FROM permission").fetch().rowsUpdated().block();
+        databaseClient.sql("DELETE FROM rol").fetch().rowsUpdated().block();
+
+        rolId = webTestClient.post().uri("/api/v1/rols")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"AUDITOR\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Rol.class)
+                .returnResult().getResponseBody().getId();
+    }
+
+    @Test
+    public void permissionChangesAreVisibleWithoutDatabaseReads(){
+        webTestClient.post().uri("/api/v1/rols/{rolId}/permission", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"method\":\"GET\",\"endpoint\":\"/api/v1/employees\"}")
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.post().uri("/api/v1/rols/{rolId}/permission", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"method\":\"GET\",\"endpoint\":\"/api/v1/rols\"}")
+                .exchange()
+                .expectStatus().isCreated();
+
+        statementCounter.reset();
+        webTestClient.get().uri("/api/v1/rols/{rolId}", rolId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("AUDITOR")
+                .jsonPath("$.permission[0].GET.length()").isEqualTo(2)
+                .jsonPath("$.permission[0].GET[0]").isEqualTo("/api/v1/employees");
+        assertEquals(0, statementCounter.count(), () -> "statements: " + statementCounter.statements());
+
+        webTestClient.put().uri("/api/v1/rols/{rolId}", rolId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"AUDITORIA\"}")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/rols/{rolId}", rolId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("AUDITORIA");
+    }
+}
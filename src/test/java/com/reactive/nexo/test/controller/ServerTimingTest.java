@@ -0,0 +1,102 @@
+package com.reactive.nexo.test.controller;
+
+import com.reactive.nexo.test.support.StatementCounter;
+import com.reactive.nexo.test.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every response carries a Server-Timing header with the statements and database time of
+ * its request, BCrypt time and serialization time; requests over the query budget are logged.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "request-timing.query-budget=1")
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+@Import({StatementCounter.Config.class, TestData.class})
+@ExtendWith(OutputCaptureExtension.class)
+public class ServerTimingTest {
+
+    private static final Pattern SERVER_TIMING = Pattern.compile(
+            "db;desc=\"(\\d+) statements\";dur=([\\d.]+), bcrypt;dur=([\\d.]+), serialize;dur=([\\d.]+), total;dur=([\\d.]+)");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Integer employeeId;
+
+    @BeforeEach
+    public void setup(){
+        testData.clearEmployees();
+
+        employeeId = testData.insert("INSERT INTO employees (names, lastnames, identification_type, identification_number, password) VALUES ('Luz', 'Rio', 'CC', '9001', $1)",
+                new BCryptPasswordEncoder(4).encode("clave"));
+    }
+
+    @Test
+    public void headerCountsTheStatementsOfTheRequest(CapturedOutput output){
+        statementCounter.reset();
+        String header = webTestClient.get().uri("/api/v1/employees/{id}", employeeId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getFirst("Server-Timing");
+        int statements = statementCounter.count();
+
+        Matcher timing = SERVER_TIMING.matcher(header);
+        assertTrue(timing.matches(), header);
+        // the pool validates connections without a query, so the header counts only the application's statements
+        int reported = Integer.parseInt(timing.group(1));
+        assertEquals(statements, reported, () -> reported + " reported, statements: " + statementCounter.statements());
+        assertEquals(0.0, Double.parseDouble(timing.group(3)));
+        assertTrue(Double.parseDouble(timing.group(4)) > 0, header);
+
+        // more than the budget of 1: logged with the endpoint pattern
+        assertTrue(statements > 1);
+        assertTrue(output.getOut().contains("query budget exceeded - GET /api/v1/employees/{employeeId}"), "budget warning not logged");
+        assertTrue(meterRegistry.get("http.server.requests.statements").tag("uri", "/api/v1/employees/{employeeId}")
+                .summary().max() >= reported);
+    }
+
+    @Test
+    public void bcryptTimeIsReported(){
+        String header = webTestClient.post().uri("/api/v1/employees/authenticate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"identification_type\":\"CC\",\"identification_number\":\"9001\",\"password\":\"clave\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getFirst("Server-Timing");
+
+        Matcher timing = SERVER_TIMING.matcher(header);
+        assertTrue(timing.matches(), header);
+        assertTrue(Integer.parseInt(timing.group(1)) >= 1, header);
+        assertTrue(Double.parseDouble(timing.group(3)) > 0, header);
+    }
+}
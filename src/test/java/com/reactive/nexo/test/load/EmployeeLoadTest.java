@@ -0,0 +1,295 @@
+package com.reactive.nexo.test.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactive.nexo.dto.BulkImportResult;
+import com.reactive.nexo.dto.CreateEmployeeRequest;
+import com.reactive.nexo.model.Rol;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load harness, run with mvn -Pload test (excluded from the default build). Starts the service on
+ * the embedded H2 database, seeds load.employees employees through the bulk endpoint with the
+ * attribute mix of EmployeeInitializer, then drives a weighted mix of requests with WebClient at
+ * each load.concurrency level for load.duration-seconds. Reports requests/sec and p50/p95/p99
+ * latency per endpoint in the log and in load.report (JSON).
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.org.springframework.data.r2dbc=INFO")
+@ActiveProfiles("test")
+@Slf4j
+public class EmployeeLoadTest {
+
+    private static final int EMPLOYEES = Integer.getInteger("load.employees", 1000);
+    private static final List<Integer> CONCURRENCY = Arrays.stream(System.getProperty("load.concurrency", "1,8,32").split(","))
+            .map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 10));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 5));
+    private static final long SEED = Long.getLong("load.seed", 42L);
+    private static final String REPORT = System.getProperty("load.report", "target/load-report.json");
+
+    // one employee in AUTH_EVERY has a password and a role, and is used for authenticate
+    private static final int AUTH_EVERY = 10;
+    private static final String PASSWORD = "string";
+    private static final String PAGE_ATTRIBUTES = "email,telefono,alergias";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private WebClient webClient;
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<String> identifications = new ArrayList<>();
+
+    @BeforeEach
+    public void seed(){
+        webClient = WebClient.builder().baseUrl("http://localhost:" + port + "/api/v1").build();
+        Integer rolId = webClient.post().uri("/rols")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"DOCTOR\"}")
+                .retrieve().bodyToMono(Rol.class)
+                .block().getId();
+        Flux.just("GET", "PUT", "POST")
+                .concatMap(method -> webClient.post().uri("/rols/{rolId}/permission", rolId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue("{\"method\":\"" + method + "\",\"endpoint\":\"/api/v1/employees\"}")
+                        .retrieve().toBodilessEntity())
+                .blockLast();
+
+        BulkImportResult summary = webClient.post().uri("/employees/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(Flux.range(0, EMPLOYEES).map(i -> seedEmployee(i, rolId)), CreateEmployeeRequest.class)
+                .retrieve().bodyToFlux(BulkImportResult.class)
+                .filter(result -> BulkImportResult.SUMMARY.equals(result.getStatus()))
+                .blockLast();
+        assertEquals(EMPLOYEES, summary.getCreated());
+
+        databaseClient.sql("select id, identification_number from employees order by id")
+                .map((row, metadata) -> {
+                    ids.add(row.get("id", Integer.class));
+                    identifications.add(row.get("identification_number", String.class));
+                    return 1;
+                })
+                .all().blockLast();
+        log.info("load seed - employees={} attributes per employee={}", ids.size(), ATTRIBUTES.size());
+    }
+
+    @Test
+    public void mixedTraffic() throws IOException {
+        List<Operation> operations = List.of(
+                new Operation("POST /authenticate", 1, (random, id) -> webClient.post().uri("/employees/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("identification_type", "CC", "identification_number", identificationOf(authenticatingIndex(random)),
+                                "password", PASSWORD))
+                        .retrieve().toBodilessEntity()),
+                new Operation("GET /{id}", 4, (random, index) -> webClient.get().uri("/employees/{id}", ids.get(index))
+                        .retrieve().toBodilessEntity()),
+                new Operation("GET /by-identification", 2, (random, index) -> webClient.get()
+                        .uri("/employees/by-identification/{type}/{number}", "CC", identifications.get(index))
+                        .retrieve().toBodilessEntity()),
+                new Operation("GET /?attributes=", 2, (random, index) -> webClient.get()
+                        .uri("/employees?page={page}&size=20&attributes={attributes}", random.nextInt(Math.max(1, ids.size() / 20)), PAGE_ATTRIBUTES)
+                        .retrieve().toBodilessEntity()),
+                new Operation("POST /search/id", 2, (random, index) -> webClient.post().uri("/employees/search/id")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(random.ints(50, 0, ids.size()).mapToObj(ids::get).collect(Collectors.toList()))
+                        .retrieve().toBodilessEntity()),
+                new Operation("PUT /{id}", 1, (random, index) -> {
+                    // only employees without a password, so the logins keep working
+                    int target = index % AUTH_EVERY == 0 ? index + 1 < ids.size() ? index + 1 : index - 1 : index;
+                    CreateEmployeeRequest request = seedEmployee(target, null);
+                    request.setPassword(null);
+                    request.getAttributes().put("telefono", List.of("315-" + random.nextInt(1_000_000)));
+                    return webClient.put().uri("/employees/{id}", ids.get(target))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(request)
+                            .retrieve().toBodilessEntity();
+                }));
+
+        log.info("load warmup - {} at concurrency {}", WARMUP, CONCURRENCY.get(CONCURRENCY.size() - 1));
+        run(operations, CONCURRENCY.get(CONCURRENCY.size() - 1), WARMUP);
+
+        List<Map<String, Object>> report = new ArrayList<>();
+        long errors = 0;
+        for (int concurrency : CONCURRENCY) {
+            long started = System.nanoTime();
+            Map<String, Latencies> results = run(operations, concurrency, DURATION);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info(String.format("concurrency=%d (%.1fs)%n%-26s %9s %7s %9s %9s %9s %9s", concurrency, seconds,
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms"));
+            for (Operation operation : operations) {
+                Latencies latencies = results.getOrDefault(operation.name, new Latencies());
+                long[] sorted = latencies.sorted();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("concurrency", concurrency);
+                row.put("endpoint", operation.name);
+                row.put("requests", sorted.length);
+                row.put("errors", latencies.errors.get());
+                row.put("requestsPerSecond", round(sorted.length / seconds));
+                row.put("p50Ms", round(percentile(sorted, 50) / 1e6));
+                row.put("p95Ms", round(percentile(sorted, 95) / 1e6));
+                row.put("p99Ms", round(percentile(sorted, 99) / 1e6));
+                report.add(row);
+                errors += latencies.errors.get();
+                log.info(String.format("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f", operation.name, sorted.length, latencies.errors.get(),
+                        row.get("requestsPerSecond"), row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms")));
+            }
+        }
+
+        File file = new File(REPORT);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, Map.of(
+                "employees", EMPLOYEES, "durationSeconds", DURATION.getSeconds(), "results", report));
+        log.info("load report written to {}", file.getAbsolutePath());
+        assertEquals(0, errors, "requests answered with an error status");
+    }
+
+    /**
+     * Run concurrency workers until the duration elapses; each worker picks its next request
+     * by weight from its own seeded random, so a run is reproducible.
+     */
+    private Map<String, Latencies> run(List<Operation> operations, int concurrency, Duration duration) {
+        Map<String, Latencies> results = new ConcurrentHashMap<>();
+        int totalWeight = operations.stream().mapToInt(operation -> operation.weight).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> {
+                    SplittableRandom random = new SplittableRandom(SEED * 31 + worker);
+                    return Mono.defer(() -> {
+                                Operation operation = pick(operations, random.nextInt(totalWeight));
+                                Latencies latencies = results.computeIfAbsent(operation.name, name -> new Latencies());
+                                long start = System.nanoTime();
+                                return operation.call.apply(random, random.nextInt(ids.size()))
+                                        .doOnSuccess(response -> latencies.record(System.nanoTime() - start))
+                                        .onErrorResume(error -> {
+                                            latencies.record(System.nanoTime() - start);
+                                            latencies.errors.incrementAndGet();
+                                            return Mono.empty();
+                                        })
+                                        .then();
+                            })
+                            .repeat(() -> System.nanoTime() < deadline);
+                }, concurrency)
+                .blockLast();
+        return results;
+    }
+
+    private static Operation pick(List<Operation> operations, int ticket) {
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private int authenticatingIndex(SplittableRandom random) {
+        return random.nextInt((ids.size() + AUTH_EVERY - 1) / AUTH_EVERY) * AUTH_EVERY;
+    }
+
+    private String identificationOf(int index) {
+        return identifications.get(index);
+    }
+
+    private static CreateEmployeeRequest seedEmployee(int index, Integer rolId) {
+        CreateEmployeeRequest request = new CreateEmployeeRequest();
+        request.setNames("Empleado " + index);
+        request.setLastnames("Carga");
+        request.setIdentification_type("CC");
+        request.setIdentification_number(String.valueOf(9_000_000 + index));
+        if (index % AUTH_EVERY == 0 && rolId != null) {
+            request.setPassword(PASSWORD);
+            request.setRol_id(rolId);
+        }
+        Map<String, List<String>> attributes = new LinkedHashMap<>();
+        ATTRIBUTES.forEach((name, values) -> attributes.put(name, name.equals("historia_clinica_numero") ? List.of("HC-" + index) : values));
+        request.setAttributes(attributes);
+        return request;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // same attributes and values as EmployeeInitializer
+    private static final Map<String, List<String>> ATTRIBUTES = new LinkedHashMap<>();
+    static {
+        ATTRIBUTES.put("fecha de nacimiento", List.of("1992-05-06"));
+        ATTRIBUTES.put("lugar de nacimiento ciudad", List.of("cali"));
+        ATTRIBUTES.put("lugar de nacimiento departamento", List.of("valle"));
+        ATTRIBUTES.put("lugar de nacimiento pais", List.of("colombia"));
+        ATTRIBUTES.put("ubicacion ciudad", List.of("guachene"));
+        ATTRIBUTES.put("ubicacion departamento", List.of("cauca"));
+        ATTRIBUTES.put("ubicacion pais", List.of("colombia"));
+        ATTRIBUTES.put("entidad de salud", List.of("sura"));
+        ATTRIBUTES.put("ultima consulta", List.of("2024-06-06"));
+        ATTRIBUTES.put("telefono", List.of("315-000-0000"));
+        ATTRIBUTES.put("email", List.of("jhon-doe@test.co"));
+        ATTRIBUTES.put("regimen", List.of("subcidiado"));
+        ATTRIBUTES.put("historia_clinica_numero", List.of("HC-1000"));
+        ATTRIBUTES.put("diagnostico_principal", List.of("Hipertension"));
+        ATTRIBUTES.put("alergias", List.of("Ninguna", "Penicilina"));
+    }
+
+    private record Operation(String name, int weight, BiFunction<SplittableRandom, Integer, Mono<?>> call) {
+    }
+
+    private static final class Latencies {
+        private final AtomicLong errors = new AtomicLong();
+        private long[] nanos = new long[1024];
+        private int size;
+
+        synchronized void record(long elapsed) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = elapsed;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.reactive.nexo.test.service;
+
+import com.reactive.nexo.service.PasswordHasher;
+import com.reactive.nexo.service.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BCrypt work runs on the bounded hashing pool and is rejected with 503 once its queue is full;
+ * the cost is calibrated within bounds and hashes with another cost are flagged for rehash.
+ */
+public class PasswordHasherTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    public void setup(){
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        hasher = new PasswordHasher(1, 1, Duration.ofSeconds(2), 4, Duration.ofMillis(80), 4, 16,
+                beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    public void shutdown(){
+        hasher.shutdown();
+    }
+
+    @Test
+    public void hashesOffTheCallingThread(){
+        String hash = hasher.encode("secret").block();
+        assertTrue(PasswordHasher.isBCrypt(hash));
+        assertTrue(hasher.matches("secret", hash).block());
+        assertFalse(hasher.matches("other", hash).block());
+        assertFalse(hasher.matches(null, hash).block());
+        assertEquals(1, registry.get("password.hash").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    public void calibrationStaysWithinBounds(){
+        assertEquals(4, PasswordHasher.calibrate(Duration.ZERO, 4, 8));
+        assertEquals(5, PasswordHasher.calibrate(Duration.ofSeconds(30), 4, 5));
+    }
+
+    @Test
+    public void hashesWithOtherCostNeedRehash(){
+        String current = hasher.encode("secret").block();
+        assertEquals(4, PasswordHasher.costOf(current));
+        assertFalse(hasher.needsRehash(current));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        assertEquals(-1, PasswordHasher.costOf("plain"));
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull(){
+        // one running + one queued; the third submission has nowhere to go
+        List<Throwable> errors = Flux.range(0, 3)
+                .flatMap(i -> hasher.encode("secret-" + i).then(Mono.<Throwable>empty()).onErrorResume(Mono::just))
+                .collectList()
+                .block();
+
+        assertEquals(1, errors.size());
+        ServiceBusyException busy = assertInstanceOf(ServiceBusyException.class, errors.get(0));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatusCode());
+        assertEquals("2", busy.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, registry.get("password.hash.rejected").counter().count());
+    }
+}
@@ -0,0 +1,28 @@
+package com.reactive.nexo.test.support;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The test profile shares one in-memory H2 database between application contexts, so every
+ * context starts from an empty, freshly migrated schema. Other profiles keep Boot's default
+ * strategy: migrate only, with clean disabled.
+ *
+ * Kept in the test sources so the application artifact has no schema-wiping code path. It is
+ * a plain @Configuration (not a @TestConfiguration) so that component scanning picks it up for
+ * every test context without an @Import.
+ */
+@Configuration
+@Profile("test")
+public class FlywayTestProfileConfiguration {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.reactive.nexo.test.support;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Statement budgets per scenario, kept in src/test/resources/query-budget.properties:
+ *
+ *   employees.get-by-id = 2      exact: more fails (regression), fewer fails until the baseline is lowered
+ *   employees.patch = &lt;=4       maximum: more fails, fewer passes
+ *
+ * The counts of a run are written to target/query-budget.properties. Running with
+ * -Dquery-budget.update=true lowers the baseline to the counts observed (it never raises a
+ * budget: an endpoint that needs more statements is a reviewed edit of the file) and adds
+ * the scenarios it does not have yet.
+ */
+public class QueryBudget implements AfterAllCallback {
+
+    private static final String FILE = "query-budget.properties";
+    private static final Path BASELINE = Path.of("src", "test", "resources", FILE);
+    private static final Path REPORT = Path.of("target", FILE);
+    private static final Pattern ENTRY = Pattern.compile("^(\\s*)([\\w.-]+)(\\s*=\\s*)(<=)?(\\d+)(.*)$");
+
+    private final Map<String, Budget> budgets = new LinkedHashMap<>();
+    private final Map<String, Integer> observed = new TreeMap<>();
+    private final boolean update = Boolean.getBoolean("query-budget.update");
+
+    public QueryBudget() {
+        Properties properties = new Properties();
+        try (InputStream in = QueryBudget.class.getClassLoader().getResourceAsStream(FILE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        properties.stringPropertyNames().forEach(scenario -> budgets.put(scenario, Budget.parse(properties.getProperty(scenario))));
+    }
+
+    /**
+     * Check the statements recorded by the counter since its last reset against the budget of the scenario.
+     */
+    public void check(String scenario, StatementCounter counter) {
+        int count = counter.count();
+        observed.put(scenario, count);
+        Budget budget = budgets.get(scenario);
+        if (budget == null) {
+            if (!update) {
+                fail("no query budget for " + scenario + ": add '" + scenario + " = " + count + "' to " + BASELINE
+                        + " (or run with -Dquery-budget.update=true)");
+            }
+            return;
+        }
+        if (count > budget.limit) {
+            fail(scenario + " ran " + count + " statements, over its budget of " + budget + ": " + counter.statements());
+        }
+        if (budget.exact && count < budget.limit && !update) {
+            fail(scenario + " now runs " + count + " statements, fewer than its baseline of " + budget.limit
+                    + ": lower it in " + BASELINE + " (or run with -Dquery-budget.update=true)");
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        List<String> report = new ArrayList<>();
+        observed.forEach((scenario, count) -> report.add(scenario + " = " + count));
+        Files.write(REPORT, report, StandardCharsets.UTF_8);
+        if (update && Files.exists(BASELINE)) {
+            tighten();
+        }
+    }
+
+    private void tighten() throws IOException {
+        Map<String, Integer> pending = new TreeMap<>(observed);
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(BASELINE, StandardCharsets.UTF_8)) {
+            Matcher entry = ENTRY.matcher(line);
+            if (entry.matches() && pending.containsKey(entry.group(2))) {
+                int count = pending.remove(entry.group(2));
+                if (count < Integer.parseInt(entry.group(5))) {
+                    line = entry.group(1) + entry.group(2) + entry.group(3) + (entry.group(4) == null ? "" : "<=") + count + entry.group(6);
+                }
+            }
+            lines.add(line);
+        }
+        pending.forEach((scenario, count) -> lines.add(scenario + " = " + count));
+        Files.write(BASELINE, lines, StandardCharsets.UTF_8);
+    }
+
+    private static final class Budget {
+        private final boolean exact;
+        private final int limit;
+
+        private Budget(boolean exact, int limit) {
+            this.exact = exact;
+            this.limit = limit;
+        }
+
+        static Budget parse(String value) {
+            String trimmed = value.trim();
+            return trimmed.startsWith("<=")
+                    ? new Budget(false, Integer.parseInt(trimmed.substring(2).trim()))
+                    : new Budget(true, Integer.parseInt(trimmed));
+        }
+
+        @Override
+        public String toString() {
+            return exact ? String.valueOf(limit) : "<=" + limit;
+        }
+    }
+}
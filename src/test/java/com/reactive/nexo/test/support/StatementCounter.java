@@ -0,0 +1,67 @@
+package com.reactive.nexo.test.support;
+
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test helper that wraps the application ConnectionFactory with r2dbc-proxy and records
+ * every statement executed against the database. Import {@link Config} in a test and
+ * call {@link #reset()} before the request under measurement.
+ */
+public class StatementCounter implements ProxyExecutionListener {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beforeQuery(QueryExecutionInfo execInfo) {
+        for (QueryInfo query : execInfo.getQueries()) {
+            statements.add(query.getQuery());
+        }
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        public static BeanPostProcessor statementCountingConnectionFactory(ObjectProvider<StatementCounter> counter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof ConnectionFactory connectionFactory) {
+                        return ProxyConnectionFactory.builder(connectionFactory)
+                                .listener(counter.getObject())
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
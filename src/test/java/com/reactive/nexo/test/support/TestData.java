@@ -0,0 +1,67 @@
+package com.reactive.nexo.test.support;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Seeds the employee tables directly, below the API, so fixtures cost no request and do not
+ * show up in what a test measures. Import it in a test next to {@link StatementCounter.Config}
+ * and call {@link #clearEmployees()} in its @BeforeEach.
+ */
+public class TestData {
+
+    private final DatabaseClient databaseClient;
+
+    public TestData(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Delete every employee with its attributes, values and queued emails.
+     */
+    public void clearEmployees() {
+        execute("DELETE FROM email_outbox");
+        execute("DELETE FROM value_attribute_employee");
+        execute("DELETE FROM attribute_employee");
+        execute("DELETE FROM employees");
+    }
+
+    /**
+     * Insert an employee with lastnames 'Test' and no password; returns its id.
+     */
+    public Integer insertEmployee(String names, String identificationType, String identificationNumber) {
+        return insert("INSERT INTO employees (names, lastnames, identification_type, identification_number) VALUES ($1, 'Test', $2, $3)",
+                names, identificationType, identificationNumber);
+    }
+
+    /**
+     * Add an attribute with the given values to an employee; returns the attribute id.
+     */
+    public Integer addAttribute(Integer employeeId, String name, boolean multiple, String... values) {
+        Integer attributeId = insert("INSERT INTO attribute_employee (name_attribute, employee_id, multiple) VALUES ($1, $2, $3)",
+                name, employeeId, multiple);
+        for (String value : values) {
+            databaseClient.sql("INSERT INTO value_attribute_employee (attribute_id, value_attribute) VALUES ($1, $2)")
+                    .bind(0, attributeId)
+                    .bind(1, value)
+                    .fetch().rowsUpdated().block();
+        }
+        return attributeId;
+    }
+
+    /**
+     * Run an INSERT with positional values ($1, $2, ...) and return the generated id.
+     */
+    public Integer insert(String sql, Object... values) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (int i = 0; i < values.length; i++) {
+            spec = spec.bind(i, values[i]);
+        }
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> row.get("id", Integer.class))
+                .one().block();
+    }
+
+    public void execute(String sql) {
+        databaseClient.sql(sql).fetch().rowsUpdated().block();
+    }
+}